@@ -0,0 +1,14 @@
+package com.example.highwayemergencystopmonitoringsystem.configs;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "incident.dedup")
+@Data
+public class DeduplicationConfig {
+    private boolean enabled = true;
+    private double radiusMeters = 50; // reports closer than this to an active incident...
+    private long windowSeconds = 60;  // ...and within this long of its latest report are merged into it
+}
@@ -0,0 +1,13 @@
+package com.example.highwayemergencystopmonitoringsystem.configs;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "incident.export")
+@Data
+public class ExportConfig {
+    private int maxConcurrent = 2;       // exports streaming at once, each holding a pooled connection; more get 429
+    private int retryAfterSeconds = 30;
+}
@@ -0,0 +1,41 @@
+package com.example.highwayemergencystopmonitoringsystem.configs;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+
+/**
+ * Incidents and images take their ids from pooled sequences (allocationSize 50) so Hibernate can batch inserts.
+ * MySQL has no sequences: Hibernate emulates each one with a single-row table (next_val). Rows created under
+ * the former IDENTITY ids would collide with a fresh sequence, so on startup each sequence is moved past
+ * MAX(id) plus one allocation block. The update never moves a sequence backwards.
+ */
+@Configuration
+@RequiredArgsConstructor
+@Slf4j
+public class IdSequenceConfig {
+
+    private static final int ALLOCATION_SIZE = 50; // must match @SequenceGenerator.allocationSize
+
+    // sequence table -> entity table
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "incident_seq", "incidents",
+            "incident_image_seq", "incident_images");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory; // injected so the schema update has created the tables
+
+    @PostConstruct
+    public void alignSequences() {
+        SEQUENCES.forEach((sequence, table) -> {
+            int updated = jdbcTemplate.update("UPDATE " + sequence + " SET next_val = GREATEST(next_val, "
+                    + "(SELECT COALESCE(MAX(id), 0) FROM " + table + ") + " + (ALLOCATION_SIZE + 1) + ")");
+            log.info("Aligned id sequence {} with {} ({} row)", sequence, table, updated);
+        });
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.highwayemergencystopmonitoringsystem.configs;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "incident.idempotency")
+@Data
+public class IdempotencyConfig {
+    private long ttlHours = 24; // how long a key's response is replayed
+    private int cacheSize = 10_000; // most recently used keys kept in memory in front of idempotency_keys
+}
@@ -0,0 +1,14 @@
+package com.example.highwayemergencystopmonitoringsystem.configs;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "incident.pack")
+@Data
+public class ImagePackConfig {
+    private int resolvedDays = 30;       // images of incidents resolved longer ago than this are packed
+    private long maxPackMegabytes = 1024; // a pack is sealed and a new one started past this size
+    private String cron = "0 30 3 * * *"; // when compaction runs by itself
+}
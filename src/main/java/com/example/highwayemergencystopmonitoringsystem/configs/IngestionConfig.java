@@ -0,0 +1,18 @@
+package com.example.highwayemergencystopmonitoringsystem.configs;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "incident.ingest")
+@Data
+public class IngestionConfig {
+    private int queueCapacity = 500; // reports accepted but not yet completed; more are rejected with 429
+    private int persistWorkers = 4;
+    private int storeWorkers = 4;
+    private int broadcastWorkers = 1;
+    private int retryAfterSeconds = 5;
+    private String stagingDir = "uploads/staging"; // images of queued reports; same file system as the upload dir
+    private long trackingRetentionMinutes = 60; // how long finished tracking ids stay queryable
+}
@@ -0,0 +1,9 @@
+package com.example.highwayemergencystopmonitoringsystem.configs;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
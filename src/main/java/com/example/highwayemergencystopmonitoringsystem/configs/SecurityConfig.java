@@ -1,6 +1,7 @@
 package com.example.highwayemergencystopmonitoringsystem.configs;
 
 import com.example.highwayemergencystopmonitoringsystem.securities.JwtFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -38,6 +39,8 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Async dispatches complete requests already authorized (streaming exports)
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         // Public endpoints - no authentication required
                         .requestMatchers("/", "/login.html", "/register.html").permitAll()
                         .requestMatchers("/dashboard", "/dashboard.html").permitAll()
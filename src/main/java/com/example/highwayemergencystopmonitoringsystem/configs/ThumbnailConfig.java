@@ -0,0 +1,14 @@
+package com.example.highwayemergencystopmonitoringsystem.configs;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "incident.thumbnail")
+@Data
+public class ThumbnailConfig {
+    private int workers = 2;          // decoding is CPU and memory heavy: keep this near the core count
+    private int queueCapacity = 1000; // images waiting for thumbnails; more are dropped until the next backfill
+    private float quality = 0.8f;     // JPEG quality of the generated thumbnails
+}
@@ -0,0 +1,36 @@
+package com.example.highwayemergencystopmonitoringsystem.configs;
+
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread factories for the application's own worker pools, following spring.threads.virtual.enabled like the
+ * servlet container, task executor and scheduler that Spring Boot configures.
+ * Pools keep their fixed worker counts in both modes: with virtual threads the count still bounds how many
+ * tasks hold a database connection at once.
+ */
+@Component
+public class WorkerThreads {
+
+    private final boolean virtual;
+
+    public WorkerThreads(Environment environment) {
+        this.virtual = Threading.VIRTUAL.isActive(environment);
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Threads named namePrefix1, namePrefix2, ...; platform threads are daemons
+     */
+    public ThreadFactory factory(String namePrefix) {
+        return virtual
+                ? Thread.ofVirtual().name(namePrefix, 1).factory()
+                : Thread.ofPlatform().name(namePrefix, 1).daemon(true).factory();
+    }
+}
@@ -3,18 +3,22 @@ package com.example.highwayemergencystopmonitoringsystem.controllers;
 import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentResponse;
 import com.example.highwayemergencystopmonitoringsystem.entities.Incident;
 import com.example.highwayemergencystopmonitoringsystem.repositories.IncidentRepository;
-import com.example.highwayemergencystopmonitoringsystem.services.IncidentService;
+import com.example.highwayemergencystopmonitoringsystem.services.ActiveIncidentIndex;
+import com.example.highwayemergencystopmonitoringsystem.services.IncidentChangeLog;
+import com.example.highwayemergencystopmonitoringsystem.services.IncidentRollupService;
+import com.example.highwayemergencystopmonitoringsystem.services.IncidentStatistics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,26 +29,33 @@ import java.util.Map;
 @Slf4j
 public class DashboardController {
 
-    private final IncidentService incidentService;
     private final IncidentRepository incidentRepository;
+    private final ActiveIncidentIndex activeIncidentIndex;
+    private final IncidentStatistics incidentStatistics;
+    private final IncidentRollupService incidentRollupService;
+    private final IncidentChangeLog incidentChangeLog;
 
     /**
      * Get dashboard overview:
      * - Active incidents (DETECTED + CONFIRMED)
      * - Resolved incidents summary
      * - Statistics by status
+     * Answers If-None-Match with 304 while no incident has changed
      */
     @GetMapping("/overview")
-    public ResponseEntity<Map<String, Object>> getDashboardOverview() {
+    public ResponseEntity<Map<String, Object>> getDashboardOverview(WebRequest webRequest) {
+        if (webRequest.checkNotModified(incidentChangeLog.etag())) {
+            return null;
+        }
         try {
-            List<IncidentResponse> detectedIncidents = incidentService.listIncidentsByStatus(Incident.IncidentStatus.DETECTED);
-            List<IncidentResponse> confirmedIncidents = incidentService.listIncidentsByStatus(Incident.IncidentStatus.CONFIRMED);
-            List<IncidentResponse> resolvedIncidents = incidentService.listIncidentsByStatus(Incident.IncidentStatus.RESOLVED);
+            List<IncidentResponse> detectedIncidents = activeIncidentIndex.getActiveIncidents(Incident.IncidentStatus.DETECTED);
+            List<IncidentResponse> confirmedIncidents = activeIncidentIndex.getActiveIncidents(Incident.IncidentStatus.CONFIRMED);
+            long resolvedCount = incidentStatistics.getCount(Incident.IncidentStatus.RESOLVED);
 
             Map<String, Object> overview = new HashMap<>();
             overview.put("detectedCount", detectedIncidents.size());
             overview.put("confirmedCount", confirmedIncidents.size());
-            overview.put("resolvedCount", resolvedIncidents.size());
+            overview.put("resolvedCount", resolvedCount);
             overview.put("activeIncidents", detectedIncidents.size() + confirmedIncidents.size());
             overview.put("detectedIncidents", detectedIncidents);
             overview.put("confirmedIncidents", confirmedIncidents);
@@ -58,19 +69,45 @@ public class DashboardController {
 
     /**
      * Get active incidents (DETECTED + CONFIRMED) for real-time map display
+     * Served from the in-memory ActiveIncidentIndex, recent first
      */
     @GetMapping("/active-incidents")
     public ResponseEntity<List<IncidentResponse>> getActiveIncidents() {
         try {
-            List<IncidentResponse> detectedIncidents = new java.util.ArrayList<>(incidentService.listIncidentsByStatus(Incident.IncidentStatus.DETECTED));
-            List<IncidentResponse> confirmedIncidents = incidentService.listIncidentsByStatus(Incident.IncidentStatus.CONFIRMED);
+            return ResponseEntity.ok(activeIncidentIndex.getActiveIncidents());
+        } catch (Exception e) {
+            log.error("Error getting active incidents", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
 
-            detectedIncidents.addAll(confirmedIncidents);
-            detectedIncidents.sort((a, b) -> b.getDetectionTime().compareTo(a.getDetectionTime()));
+    /**
+     * Compare the in-memory active incident index with the database
+     * GET /api/dashboard/active-incidents/consistency
+     */
+    @GetMapping("/active-incidents/consistency")
+    public ResponseEntity<Map<String, Object>> checkActiveIncidentIndex() {
+        try {
+            return ResponseEntity.ok(activeIncidentIndex.checkConsistency());
+        } catch (Exception e) {
+            log.error("Error checking active incident index", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
 
-            return ResponseEntity.ok(detectedIncidents);
+    /**
+     * Reload the in-memory active incident index from the database
+     * POST /api/dashboard/active-incidents/rebuild
+     */
+    @PostMapping("/active-incidents/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildActiveIncidentIndex() {
+        try {
+            int size = activeIncidentIndex.rebuild();
+            Map<String, Object> result = new HashMap<>();
+            result.put("indexSize", size);
+            return ResponseEntity.ok(result);
         } catch (Exception e) {
-            log.error("Error getting active incidents", e);
+            log.error("Error rebuilding active incident index", e);
             return ResponseEntity.internalServerError().build();
         }
     }
@@ -79,10 +116,16 @@ public class DashboardController {
      * Get quick statistics for dashboard:
      * - Average processing time (for resolved incidents)
      * - Today's incidents count
-     * - This week's incidents count
+     * - This week's and this month's incidents count
+     * Answers If-None-Match with 304 while no incident has changed (same day)
      */
     @GetMapping("/statistics")
-    public ResponseEntity<Map<String, Object>> getQuickStatistics() {
+    public ResponseEntity<Map<String, Object>> getQuickStatistics(WebRequest webRequest) {
+        // Today/week/month counts also change when the date does, and once the rollups replace the live counts
+        boolean rollupsReady = incidentRollupService.isReady();
+        if (webRequest.checkNotModified(incidentChangeLog.etag(LocalDate.now() + (rollupsReady ? "" : "-live")))) {
+            return null;
+        }
         try {
             Map<String, Object> stats = new HashMap<>();
             
@@ -93,28 +136,31 @@ public class DashboardController {
             // This week's date range (Monday to now)
             LocalDate today = LocalDate.now();
             LocalDate weekStart = today.minusDays(today.getDayOfWeek().getValue() - 1);
-            LocalDateTime weekStartDateTime = weekStart.atStartOfDay();
+            LocalDate monthStart = today.withDayOfMonth(1);
             
-            // Count today's incidents
+            // Count today's incidents (live, one day of the detection time index)
             long todayIncidents = incidentRepository.countByDetectionTimeBetween(todayStart, todayEnd);
             stats.put("todayIncidents", todayIncidents);
             
-            // Count this week's incidents
-            long weekIncidents = incidentRepository.countByDetectionTimeBetween(weekStartDateTime, todayEnd);
+            // Past days of this week and month come from the daily rollups once they are backfilled
+            long weekIncidents;
+            long monthIncidents;
+            if (rollupsReady) {
+                weekIncidents = incidentRollupService.sumDaily(weekStart, today).get("total") + todayIncidents;
+                monthIncidents = incidentRollupService.sumDaily(monthStart, today).get("total") + todayIncidents;
+            } else {
+                weekIncidents = incidentRepository.countByDetectionTimeBetween(weekStart.atStartOfDay(), todayEnd);
+                monthIncidents = incidentRepository.countByDetectionTimeBetween(monthStart.atStartOfDay(), todayEnd);
+            }
             stats.put("weekIncidents", weekIncidents);
+            stats.put("monthIncidents", monthIncidents);
             
-            // Calculate average processing time for resolved incidents
-            List<Incident> resolvedIncidents = incidentRepository.findResolvedIncidentsWithResolutionTime();
-            if (!resolvedIncidents.isEmpty()) {
-                double avgMinutes = resolvedIncidents.stream()
-                        .filter(i -> i.getResolutionTime() != null && i.getDetectionTime() != null)
-                        .mapToLong(i -> ChronoUnit.MINUTES.between(i.getDetectionTime(), i.getResolutionTime()))
-                        .average()
-                        .orElse(0);
-                
+            // Average processing time for resolved incidents, from the in-memory counters
+            Double avgMinutes = incidentStatistics.getAverageResolutionMinutes();
+            if (avgMinutes != null) {
                 // Format as "Xh Ym" or "Ym" if less than 1 hour
-                long hours = (long) avgMinutes / 60;
-                long minutes = (long) avgMinutes % 60;
+                long hours = avgMinutes.longValue() / 60;
+                long minutes = avgMinutes.longValue() % 60;
                 String avgTimeFormatted;
                 if (hours > 0) {
                     avgTimeFormatted = String.format("%dh %dm", hours, minutes);
@@ -0,0 +1,70 @@
+package com.example.highwayemergencystopmonitoringsystem.controllers;
+
+import com.example.highwayemergencystopmonitoringsystem.services.HighwaySegmentIndex;
+import com.example.highwayemergencystopmonitoringsystem.services.SegmentBackfillService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/segments")
+@RequiredArgsConstructor
+@Slf4j
+public class HighwaySegmentController {
+
+    private final HighwaySegmentIndex highwaySegmentIndex;
+    private final SegmentBackfillService segmentBackfillService;
+
+    /**
+     * Segment containing a point
+     * GET /api/segments/lookup?lat=10.82&lon=106.63
+     * Response: { segmentId } (null when the point is outside every segment)
+     */
+    @GetMapping("/lookup")
+    public ResponseEntity<Map<String, Object>> lookupSegment(@RequestParam double lat, @RequestParam double lon) {
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("segmentId", highwaySegmentIndex.findSegmentId(lat, lon));
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Reload segment geometries after highway_segments was edited
+     * POST /api/segments/reload
+     */
+    @PostMapping("/reload")
+    public ResponseEntity<Map<String, Object>> reloadSegments() {
+        try {
+            return ResponseEntity.ok(Map.of("segments", highwaySegmentIndex.reload()));
+        } catch (Exception e) {
+            log.error("Error reloading segments", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Assign segments to historical incidents
+     * POST /api/segments/backfill?reassign=false
+     * reassign: also recompute incidents that already have a segment (after geometries changed)
+     * Response: scanned and updated incident counts
+     */
+    @PostMapping("/backfill")
+    public ResponseEntity<Map<String, Object>> backfillSegments(@RequestParam(defaultValue = "false") boolean reassign) {
+        try {
+            return ResponseEntity.ok(segmentBackfillService.backfill(reassign));
+        } catch (IllegalStateException e) {
+            log.warn("Segment backfill rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            log.error("Error backfilling segments", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
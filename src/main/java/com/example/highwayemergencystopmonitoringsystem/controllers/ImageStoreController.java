@@ -0,0 +1,97 @@
+package com.example.highwayemergencystopmonitoringsystem.controllers;
+
+import com.example.highwayemergencystopmonitoringsystem.services.ImageDedupMigrationService;
+import com.example.highwayemergencystopmonitoringsystem.services.ImagePackCompactionService;
+import com.example.highwayemergencystopmonitoringsystem.services.ImageShardMigrationService;
+import com.example.highwayemergencystopmonitoringsystem.services.ThumbnailService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/images")
+@RequiredArgsConstructor
+@Slf4j
+public class ImageStoreController {
+
+    private final ImageDedupMigrationService imageDedupMigrationService;
+    private final ImageShardMigrationService imageShardMigrationService;
+    private final ImagePackCompactionService imagePackCompactionService;
+    private final ThumbnailService thumbnailService;
+
+    /**
+     * Move images uploaded before the content-addressable store into it, sharing identical files
+     * POST /api/images/dedup
+     * Response: scanned, migrated, filesRemoved and skipped image counts
+     */
+    @PostMapping("/dedup")
+    public ResponseEntity<Map<String, Object>> deduplicateImages() {
+        try {
+            return ResponseEntity.ok(imageDedupMigrationService.migrate());
+        } catch (IllegalStateException e) {
+            log.warn("Image deduplication rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            log.error("Error deduplicating images", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Move images and thumbnails stored before sharding into their shard directories; old paths stay readable
+     * POST /api/images/shard
+     * Response: scanned and moved blob counts, rewritten image rows, removed flat files, moved thumbnails
+     */
+    @PostMapping("/shard")
+    public ResponseEntity<Map<String, Object>> shardImages() {
+        try {
+            return ResponseEntity.ok(imageShardMigrationService.migrate());
+        } catch (IllegalStateException e) {
+            log.warn("Image shard migration rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            log.error("Error sharding images", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Pack the images of incidents resolved more than incident.pack.resolved-days ago (also runs nightly)
+     * POST /api/images/pack
+     * Response: scanned, packed and missing blob counts, bytes packed and the names of the packs written
+     */
+    @PostMapping("/pack")
+    public ResponseEntity<Map<String, Object>> packImages() {
+        try {
+            return ResponseEntity.ok(imagePackCompactionService.compact());
+        } catch (IllegalStateException e) {
+            log.warn("Image compaction rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            log.error("Error packing images", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Generate missing thumbnails, e.g. for images uploaded before thumbnails existed or dropped from a full queue
+     * POST /api/images/thumbnails
+     * Response: scanned, generated and unsupported image counts
+     */
+    @PostMapping("/thumbnails")
+    public ResponseEntity<Map<String, Object>> backfillThumbnails() {
+        try {
+            return ResponseEntity.ok(thumbnailService.backfill());
+        } catch (IllegalStateException e) {
+            log.warn("Thumbnail backfill rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            log.error("Error generating thumbnails", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
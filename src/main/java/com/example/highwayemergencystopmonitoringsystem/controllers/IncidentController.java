@@ -1,25 +1,62 @@
 package com.example.highwayemergencystopmonitoringsystem.controllers;
 
+import com.example.highwayemergencystopmonitoringsystem.configs.IngestionConfig;
+import com.example.highwayemergencystopmonitoringsystem.dtos.BulkIncidentItem;
+import com.example.highwayemergencystopmonitoringsystem.dtos.BulkIncidentResult;
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentChange;
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentChangesResponse;
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentCursor;
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentPage;
 import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentRequest;
 import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentResponse;
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentSummary;
+import com.example.highwayemergencystopmonitoringsystem.dtos.IngestionStatus;
 import com.example.highwayemergencystopmonitoringsystem.entities.Incident;
+import com.example.highwayemergencystopmonitoringsystem.services.IdempotencyService;
+import com.example.highwayemergencystopmonitoringsystem.services.ImageStorageService;
+import com.example.highwayemergencystopmonitoringsystem.services.ImageStorageService.ImageFile;
+import com.example.highwayemergencystopmonitoringsystem.services.IncidentChangeLog;
+import com.example.highwayemergencystopmonitoringsystem.services.IncidentDeduplicator;
+import com.example.highwayemergencystopmonitoringsystem.services.IncidentGeoIndex;
+import com.example.highwayemergencystopmonitoringsystem.services.IncidentIngestionPipeline;
+import com.example.highwayemergencystopmonitoringsystem.services.IncidentSearchIndex;
 import com.example.highwayemergencystopmonitoringsystem.services.IncidentService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
 
+import java.io.EOFException;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.Principal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/incidents")
@@ -28,32 +65,159 @@ import java.util.List;
 public class IncidentController {
 
     private final IncidentService incidentService;
+    private final IncidentGeoIndex incidentGeoIndex;
+    private final IncidentSearchIndex incidentSearchIndex;
+    private final IncidentChangeLog incidentChangeLog;
+    private final IncidentDeduplicator incidentDeduplicator;
+    private final IncidentIngestionPipeline incidentIngestionPipeline;
+    private final IngestionConfig ingestionConfig;
+    private final IdempotencyService idempotencyService;
+    private final ImageStorageService imageStorageService;
+
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String SEARCH_TRUNCATED_HEADER = "X-Search-Truncated";
+    private static final String MERGED_INTO_HEADER = "X-Merged-Into";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IMAGE_PATH_PREFIX = "/api/incidents/image/";
+    private static final String IMAGE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end"; // exclusive
 
     /**
      * UC-01: Create incident with initial images (supports multiple files)
      * POST /api/incidents
      * Request: multipart/form-data with IncidentRequest (latitude, longitude, description) + image file(s)
-     * Response: IncidentResponse with status=DETECTED, detection_time=now()
+     * Response: 201 IncidentResponse with status=DETECTED, detection_time=now(); or 200 with the existing
+     * incident (and X-Merged-Into header) when the report duplicates an active incident nearby.
+     * With an Idempotency-Key header, a retry by the same user replays the first successful response
+     * (Idempotent-Replayed: true); 422 when the user already used the key for a different request
      */
     @PostMapping
     public ResponseEntity<IncidentResponse> createIncident(
             @Valid @RequestParam("latitude") Double latitude,
             @Valid @RequestParam("longitude") Double longitude,
             @Valid @RequestParam("description") String description,
-            @RequestParam("image") List<MultipartFile> imageFiles) {
+            @RequestParam("image") List<MultipartFile> imageFiles,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            Principal principal) {
 
+        IncidentRequest request = IncidentRequest.builder()
+                .latitude(latitude)
+                .longitude(longitude)
+                .description(description)
+                .build();
+        if (idempotencyKey == null) {
+            return doCreateIncident(request, imageFiles);
+        }
+        String requestHash;
+        try {
+            requestHash = IdempotencyService.fingerprint(imageFiles, latitude, longitude, description);
+        } catch (IOException e) {
+            log.error("Error reading uploaded images", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+        return withIdempotencyKey(principal, "create-incident", idempotencyKey, requestHash,
+                () -> doCreateIncident(request, imageFiles));
+    }
+
+    private ResponseEntity<IncidentResponse> doCreateIncident(IncidentRequest request, List<MultipartFile> imageFiles) {
+        try {
+            IncidentDeduplicator.Result result = incidentDeduplicator.ingest(request, imageFiles);
+            IncidentResponse response = result.incident();
+            if (result.duplicate()) {
+                log.info("Report merged into incident {}, images: {}", response.getId(), imageFiles.size());
+                return ResponseEntity.ok().header(MERGED_INTO_HEADER, String.valueOf(response.getId())).body(response);
+            }
+            log.info("Incident created with id: {}, images: {}", response.getId(), imageFiles.size());
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (IOException e) {
+            log.error("Error creating incident", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        } catch (IllegalArgumentException e) {
+            log.error("Validation error: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    /**
+     * Asynchronous intake: validate, queue and return immediately
+     * POST /api/incidents/ingest
+     * Request: same as POST /api/incidents
+     * Response: 202 IngestionStatus (QUEUED) with Location /api/incidents/ingest/{trackingId};
+     * 429 with Retry-After when the ingestion queue is full
+     */
+    @PostMapping("/ingest")
+    public ResponseEntity<IngestionStatus> ingestIncident(
+            @RequestParam("latitude") Double latitude,
+            @RequestParam("longitude") Double longitude,
+            @RequestParam("description") String description,
+            @RequestParam(value = "image", required = false) List<MultipartFile> imageFiles) {
         try {
             IncidentRequest request = IncidentRequest.builder()
                     .latitude(latitude)
                     .longitude(longitude)
                     .description(description)
                     .build();
+            IngestionStatus status = incidentIngestionPipeline.submit(request, imageFiles != null ? imageFiles : List.of());
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/incidents/ingest/" + status.getTrackingId()))
+                    .body(status);
+        } catch (RejectedExecutionException e) {
+            log.warn("Ingestion rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(ingestionConfig.getRetryAfterSeconds()))
+                    .build();
+        } catch (IOException e) {
+            log.error("Error queuing incident", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        } catch (IllegalArgumentException e) {
+            log.error("Validation error: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
 
-            IncidentResponse response = incidentService.createIncident(request, imageFiles);
-            log.info("Incident created with id: {}, images: {}", response.getId(), imageFiles.size());
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    /**
+     * Progress of an asynchronously ingested report
+     * GET /api/incidents/ingest/{trackingId}
+     * Response: IngestionStatus (incidentId once persisted); 404 when unknown or expired
+     */
+    @GetMapping("/ingest/{trackingId}")
+    public ResponseEntity<IngestionStatus> getIngestionStatus(@PathVariable String trackingId) {
+        IngestionStatus status = incidentIngestionPipeline.getStatus(trackingId);
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    }
+
+    /**
+     * Ingestion pipeline metrics
+     * GET /api/incidents/ingest/metrics
+     * Response: capacity, inFlight, accepted/rejected/completed/failed counts and, per stage, workers, active,
+     * queued and latencyMs quantiles (queue wait included); endToEndMs quantiles
+     */
+    @GetMapping("/ingest/metrics")
+    public ResponseEntity<Map<String, Object>> getIngestionMetrics() {
+        return ResponseEntity.ok(incidentIngestionPipeline.metrics());
+    }
+
+    /**
+     * Create many incidents in one transaction with batched inserts
+     * POST /api/incidents/bulk
+     * Request: multipart/form-data with an "incidents" JSON part, a list of
+     * { clientRef, latitude, longitude, description, images: ["partName", ...] }, plus the named image parts
+     * Response: one BulkIncidentResult per item in request order (CREATED with incidentId, or INVALID with error);
+     * 400 when the list is empty or longer than IncidentService.MAX_BULK_SIZE.
+     * Bulk items are not deduplicated against active incidents.
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<List<BulkIncidentResult>> createIncidents(
+            @RequestPart("incidents") List<BulkIncidentItem> items,
+            MultipartHttpServletRequest multipartRequest) {
+        try {
+            List<BulkIncidentResult> results = incidentService.createIncidents(items, multipartRequest.getFileMap());
+            return ResponseEntity.ok(results);
         } catch (IOException e) {
-            log.error("Error creating incident", e);
+            log.error("Error creating incidents in bulk", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         } catch (IllegalArgumentException e) {
             log.error("Validation error: {}", e.getMessage());
@@ -64,10 +228,13 @@ public class IncidentController {
     /**
      * UC-01: Get incident details with all images
      * GET /api/incidents/{id}
-     * Response: IncidentResponse with all linked images
+     * Response: IncidentResponse with all linked images; 304 when If-None-Match carries the incident's ETag
      */
     @GetMapping("/{id}")
-    public ResponseEntity<IncidentResponse> getIncident(@PathVariable Long id) {
+    public ResponseEntity<IncidentResponse> getIncident(@PathVariable Long id, WebRequest webRequest) {
+        if (webRequest.checkNotModified(incidentChangeLog.incidentEtag(id))) {
+            return null;
+        }
         try {
             IncidentResponse response = incidentService.getIncidentById(id);
             return ResponseEntity.ok(response);
@@ -78,32 +245,184 @@ public class IncidentController {
     }
 
     /**
-     * UC-01: List incidents by status
-     * GET /api/incidents?status=DETECTED
-     * Response: List of IncidentResponse ordered by detection_time (recent first)
+     * UC-01: List incidents, keyset-paginated on (detection_time, id)
+     * GET /api/incidents?status=DETECTED&from=2024-01-01T00:00:00&to=2024-02-01T00:00:00&size=100&cursor=...
+     * GET /api/incidents?fields=id,latitude,longitude,status,detectionTime,thumbnail (sparse summary rows)
+     * Response: one page of IncidentResponse (or IncidentSummary when fields only names summary fields)
+     * ordered by detection_time (recent first); the X-Next-Cursor header carries the cursor for the
+     * following page (absent on the last page). The ETag is the global incident change version, so polls
+     * with If-None-Match get 304 until some incident changes.
      */
     @GetMapping
-    public ResponseEntity<List<IncidentResponse>> listIncidents(
-            @RequestParam(required = false) String status) {
+    public ResponseEntity<List<?>> listIncidents(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Set<String> fields,
+            WebRequest webRequest) {
+        if (webRequest.checkNotModified(incidentChangeLog.etag())) {
+            return null;
+        }
         try {
-            List<IncidentResponse> incidents;
+            Incident.IncidentStatus incidentStatus = null;
             if (status != null && !status.isEmpty()) {
-                Incident.IncidentStatus incidentStatus = Incident.IncidentStatus.valueOf(status.toUpperCase());
-                incidents = incidentService.listIncidentsByStatus(incidentStatus);
+                incidentStatus = Incident.IncidentStatus.valueOf(status.toUpperCase());
+            }
+            IncidentCursor incidentCursor = cursor != null && !cursor.isEmpty() ? IncidentCursor.decode(cursor) : null;
+
+            IncidentPage<?> page;
+            if (fields != null && !fields.isEmpty() && IncidentSummary.FIELDS.containsAll(fields)) {
+                page = incidentService.listIncidentSummariesPage(incidentStatus, from, to, incidentCursor, size, fields);
             } else {
-                incidents = incidentService.listAllIncidents();
+                page = incidentService.listIncidentsPage(incidentStatus, from, to, incidentCursor, size);
+            }
+
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+            if (page.getNextCursor() != null) {
+                builder.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return builder.body(page.getItems());
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid listing request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    /**
+     * Incidents inside a bounding box, served from the in-memory geo index
+     * GET /api/incidents/within?bbox=minLon,minLat,maxLon,maxLat&status=DETECTED&limit=1000&thumbnail=true
+     * Response: IncidentSummary rows, most recent first
+     */
+    @GetMapping("/within")
+    public ResponseEntity<List<IncidentSummary>> listIncidentsWithin(
+            @RequestParam String bbox,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "1000") int limit,
+            @RequestParam(defaultValue = "false") boolean thumbnail) {
+        try {
+            String[] parts = bbox.split(",");
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("bbox must be minLon,minLat,maxLon,maxLat");
+            }
+            double minLon = Double.parseDouble(parts[0].trim());
+            double minLat = Double.parseDouble(parts[1].trim());
+            double maxLon = Double.parseDouble(parts[2].trim());
+            double maxLat = Double.parseDouble(parts[3].trim());
+            if (minLat > maxLat || minLon > maxLon) {
+                throw new IllegalArgumentException("bbox minimum must not exceed maximum");
+            }
+            if (limit < 1 || limit > IncidentService.MAX_PAGE_SIZE * 10) {
+                throw new IllegalArgumentException("limit must be between 1 and " + IncidentService.MAX_PAGE_SIZE * 10);
+            }
+            Incident.IncidentStatus incidentStatus = status != null && !status.isEmpty()
+                    ? Incident.IncidentStatus.valueOf(status.toUpperCase())
+                    : null;
+
+            List<IncidentSummary> incidents = incidentGeoIndex.findWithin(minLat, minLon, maxLat, maxLon, incidentStatus, limit);
+            if (thumbnail) {
+                incidentService.attachThumbnails(incidents);
             }
             return ResponseEntity.ok(incidents);
         } catch (IllegalArgumentException e) {
-            log.error("Invalid status: {}", status);
+            log.error("Invalid bounding box request: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
     }
 
+    /**
+     * k nearest active incidents to a point (patrol dispatch)
+     * GET /api/incidents/nearest?lat=10.82&lon=106.63&k=5
+     * Response: IncidentSummary rows with distanceMeters, closest first
+     */
+    @GetMapping("/nearest")
+    public ResponseEntity<List<IncidentSummary>> findNearestIncidents(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(defaultValue = "5") int k) {
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180 || k < 1 || k > 100) {
+            log.error("Invalid nearest request: lat={}, lon={}, k={}", lat, lon, k);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        try {
+            return ResponseEntity.ok(incidentGeoIndex.findNearestActive(lat, lon, k));
+        } catch (IllegalStateException e) {
+            log.warn("Nearest lookup unavailable: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    /**
+     * Delta sync: committed incident changes after a change log sequence number
+     * GET /api/incidents/changes?since=42&epoch=lq3k9x2a
+     * since/epoch: sequence and epoch of the last change the client applied (from a WebSocket message or a previous call)
+     * Response: changes oldest first plus the current state of each changed incident, or resetRequired=true when
+     * the server restarted (epoch differs) or the changes have dropped out of the log
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<IncidentChangesResponse> getChanges(
+            @RequestParam long since,
+            @RequestParam(required = false) String epoch) {
+        if (since < 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        long sequence = incidentChangeLog.getSequence();
+        List<IncidentChange> changes = epoch == null || epoch.equals(incidentChangeLog.getEpoch())
+                ? incidentChangeLog.changesSince(since)
+                : null;
+        IncidentChangesResponse.IncidentChangesResponseBuilder response = IncidentChangesResponse.builder()
+                .epoch(incidentChangeLog.getEpoch());
+        if (changes == null) {
+            return ResponseEntity.ok(response.sequence(sequence).resetRequired(true).build());
+        }
+        List<Long> incidentIds = changes.stream().map(IncidentChange::getIncidentId).distinct().toList();
+        return ResponseEntity.ok(response
+                .sequence(changes.isEmpty() ? since : changes.get(changes.size() - 1).getSequence())
+                .changes(changes)
+                .incidents(incidentService.getIncidentsByIds(incidentIds))
+                .build());
+    }
+
+    /**
+     * Full-text search over descriptions (diacritics-insensitive, words match by prefix)
+     * GET /api/incidents/search?q=xe+tai&status=DETECTED&from=2024-01-01T00:00:00&to=...&limit=50
+     * Response: IncidentResponse list, best match first; X-Search-Truncated: true when a query word was too
+     * short a prefix to search every word it starts, so matches may be missing (type more of the word)
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<IncidentResponse>> searchIncidents(
+            @RequestParam String q,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "50") int limit) {
+        try {
+            if (limit < 1 || limit > IncidentService.MAX_PAGE_SIZE) {
+                throw new IllegalArgumentException("limit must be between 1 and " + IncidentService.MAX_PAGE_SIZE);
+            }
+            Incident.IncidentStatus incidentStatus = status != null && !status.isEmpty()
+                    ? Incident.IncidentStatus.valueOf(status.toUpperCase())
+                    : null;
+            IncidentSearchIndex.SearchResult result = incidentSearchIndex.search(q, incidentStatus, from, to, limit);
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+            if (result.truncated()) {
+                builder.header(SEARCH_TRUNCATED_HEADER, "true");
+            }
+            return builder.body(incidentService.getIncidentsByIds(result.ids()));
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid search request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (IllegalStateException e) {
+            log.warn("Search unavailable: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
     /**
      * UC-01: Confirm incident (operator reviews image and confirms)
      * PUT /api/incidents/{id}/confirm
-     * Validation: incident status must be DETECTED, must have at least 1 image
+     * Validation: incident status must be DETECTED (409 otherwise), must have at least 1 image
      * Response: IncidentResponse with status=CONFIRMED
      */
     @PutMapping("/{id}/confirm")
@@ -115,13 +434,16 @@ public class IncidentController {
         } catch (IllegalArgumentException e) {
             log.error("Error confirming incident: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (IllegalStateException e) {
+            log.warn("Incident {} not confirmed: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
     }
 
     /**
      * UC-01: Resolve incident (end state)
      * PUT /api/incidents/{id}/resolve
-     * Sets: status=RESOLVED, resolution_time=now()
+     * Sets: status=RESOLVED, resolution_time=now(); 409 when already resolved
      * Response: IncidentResponse with status=RESOLVED, resolution_time set
      */
     @PutMapping("/{id}/resolve")
@@ -133,6 +455,9 @@ public class IncidentController {
         } catch (IllegalArgumentException e) {
             log.error("Error resolving incident: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (IllegalStateException e) {
+            log.warn("Incident {} not resolved: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
     }
 
@@ -141,12 +466,28 @@ public class IncidentController {
      * POST /api/incidents/{id}/images
      * Request: multipart/form-data with image file
      * Validation: incident must exist, status != RESOLVED, image valid
-     * Response: IncidentResponse with all images including new one
+     * Response: IncidentResponse with all images including new one; Idempotency-Key is honoured as in POST /api/incidents
      */
     @PostMapping("/{id}/images")
     public ResponseEntity<IncidentResponse> addImageToIncident(
             @PathVariable Long id,
-            @RequestParam("image") MultipartFile imageFile) {
+            @RequestParam("image") MultipartFile imageFile,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            Principal principal) {
+        if (idempotencyKey == null) {
+            return doAddImage(id, imageFile);
+        }
+        String requestHash;
+        try {
+            requestHash = IdempotencyService.fingerprint(List.of(imageFile), id);
+        } catch (IOException e) {
+            log.error("Error reading uploaded image", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+        return withIdempotencyKey(principal, "add-image", idempotencyKey, requestHash, () -> doAddImage(id, imageFile));
+    }
+
+    private ResponseEntity<IncidentResponse> doAddImage(Long id, MultipartFile imageFile) {
         try {
             IncidentResponse response = incidentService.addImage(id, imageFile);
             log.info("Image added to incident {}", id);
@@ -163,61 +504,131 @@ public class IncidentController {
     /**
      * GET image file from storage
      * GET /api/incidents/image/{imagePath}
-     * Example: /api/incidents/image/uploads/incidents/uuid_filename.png
-     * Returns: Image file with appropriate content type (jpeg, png, gif, webp)
+     * Example: /api/incidents/image/uploads/incidents/ab/cd/abcd<...sha256>.png
+     * Returns: the file with the type recorded at upload, cacheable for a year since stored files never change;
+     * 304 when If-None-Match or If-Modified-Since match, 206 for a single Range, 416 for an unsatisfiable one.
+     * Images of old resolved incidents are served from their pack file the same way.
+     * The body is sent by the container with sendfile when the connector supports it, otherwise through FileChannel.transferTo
      */
     @GetMapping("/image/**")
-    public ResponseEntity<Resource> getImage(
+    public void getImage(
             @RequestParam(value = "path", required = false) String imagePath,
-            jakarta.servlet.http.HttpServletRequest request) {
-        try {
-            // Extract path from URL
-            String fullPath = request.getRequestURI();
-            String pathFromUrl = fullPath.replace("/api/incidents/image/", "");
-            
-            // URL decode the path to handle spaces and special characters
-            String decodedPath = java.net.URLDecoder.decode(pathFromUrl, java.nio.charset.StandardCharsets.UTF_8);
-            
-            // Use path parameter if provided, otherwise use URL path
-            String finalPath = imagePath != null ? imagePath : decodedPath;
-            
-            // Normalize both forward and back slashes to forward slashes
-            String normalizedPath = finalPath.replace("\\", "/");
-            
-            // Convert forward slashes back to system-specific for file system access
-            Path filePath = Paths.get(normalizedPath.replace("/", java.io.File.separator));
-            Path normalizedFilePath = filePath.normalize();
-            Path uploadsDir = Paths.get("uploads").normalize();
-            
-            log.debug("Requested path: {}, Normalized: {}", finalPath, normalizedFilePath);
-            
-            // Security check: ensure path is within uploads directory
-            if (!normalizedFilePath.startsWith(uploadsDir)) {
-                log.warn("Access denied to path: {}", normalizedPath);
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        String requestedPath = imagePath;
+        if (requestedPath == null) {
+            String uri = request.getRequestURI();
+            requestedPath = URLDecoder.decode(uri.substring(uri.indexOf(IMAGE_PATH_PREFIX) + IMAGE_PATH_PREFIX.length()), StandardCharsets.UTF_8);
+        }
+
+        Optional<ImageFile> found;
+        try {
+            found = imageStorageService.open(requestedPath);
+        } catch (IllegalArgumentException e) {
+            log.warn("Access denied to path: {}", requestedPath);
+            response.setStatus(HttpStatus.FORBIDDEN.value());
+            return;
+        }
+        if (found.isEmpty()) {
+            log.warn("File not found: {}", requestedPath);
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        ImageFile file = found.get();
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, IMAGE_CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(file.etag(), file.lastModified())) {
+            return;
+        }
+
+        long start = 0;
+        long end = file.length() - 1;
+        HttpRange range = requestedRange(request, file);
+        if (range != null) {
+            try {
+                start = range.getRangeStart(file.length());
+                end = range.getRangeEnd(file.length());
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + file.length());
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
             }
-            
-            // Check if file exists
-            if (!Files.exists(normalizedFilePath)) {
-                log.warn("File not found: {} (looked for: {})", normalizedPath, normalizedFilePath);
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + file.length());
+        }
+        response.setContentType(file.contentType());
+        response.setContentLengthLong(end - start + 1);
+        if (!HttpMethod.HEAD.matches(request.getMethod()) && end >= start) {
+            try {
+                sendFile(request, response, file.path(), file.offset() + start, end - start + 1);
+            } catch (NoSuchFileException e) {
+                // Sharded or packed since it was looked up: the same content is now stored elsewhere
+                imageStorageService.evict(List.of(file.path()));
+                ImageFile moved = imageStorageService.open(requestedPath).orElseThrow(() -> e);
+                sendFile(request, response, moved.path(), moved.offset() + start, end - start + 1);
             }
-            
-            // Determine media type
-            String contentType = Files.probeContentType(normalizedFilePath);
-            if (contentType == null) {
-                contentType = "application/octet-stream";
+        }
+    }
+
+    /**
+     * The single range asked for, or null to send the whole file: no Range, several ranges, a malformed header,
+     * or an If-Range that is not the current ETag (a date in If-Range also gets the whole file)
+     */
+    private static HttpRange requestedRange(HttpServletRequest request, ImageFile file) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(file.etag())) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Send count bytes of the file from position: Tomcat's sendfile copies them from the page cache to the
+     * socket after the handler returns; without it (e.g. over TLS) the channel transfers them to the response
+     */
+    private static void sendFile(HttpServletRequest request, HttpServletResponse response, Path path,
+                                 long position, long count) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, position);
+            request.setAttribute(SENDFILE_END, position + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long sent = 0;
+            while (sent < count) {
+                long transferred = channel.transferTo(position + sent, count - sent, out);
+                if (transferred <= 0) {
+                    throw new EOFException("Image " + path + " ended after " + (position + sent) + " bytes");
+                }
+                sent += transferred;
             }
-            
-            log.info("Serving image: {}", normalizedFilePath);
-            Resource resource = new FileSystemResource(normalizedFilePath);
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .body(resource);
-                    
-        } catch (IOException e) {
-            log.error("Error retrieving image", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    private ResponseEntity<IncidentResponse> withIdempotencyKey(Principal principal, String scope, String idempotencyKey,
+                                                                String requestHash,
+                                                                IdempotencyService.Action<IncidentResponse> action) {
+        try {
+            return idempotencyService.execute(principal.getName(), scope, idempotencyKey, requestHash,
+                    IncidentResponse.class, action);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid idempotency key: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (IllegalStateException e) {
+            log.warn("Idempotency key rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_CONTENT).build();
         }
     }
 }
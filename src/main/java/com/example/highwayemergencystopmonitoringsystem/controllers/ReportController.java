@@ -1,16 +1,29 @@
 package com.example.highwayemergencystopmonitoringsystem.controllers;
 
+import com.example.highwayemergencystopmonitoringsystem.configs.ExportConfig;
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentAggregateResponse;
 import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentResponse;
+import com.example.highwayemergencystopmonitoringsystem.services.IncidentExportService;
+import com.example.highwayemergencystopmonitoringsystem.services.IncidentRollupService;
 import com.example.highwayemergencystopmonitoringsystem.services.ReportService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.DateTimeException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/reports")
@@ -19,6 +32,9 @@ import java.util.Map;
 public class ReportController {
 
     private final ReportService reportService;
+    private final IncidentRollupService incidentRollupService;
+    private final IncidentExportService incidentExportService;
+    private final ExportConfig exportConfig;
 
     /**
      * Get incident statistics report
@@ -69,4 +85,130 @@ public class ReportController {
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    /**
+     * Time-bucketed incident aggregation for report charts
+     * GET /api/reports/aggregate?bucket=day&from=2024-01-01&to=2024-01-31&tz=Asia/Ho_Chi_Minh
+     * bucket: hour | day | week; from/to: inclusive dates; tz: defaults to the server timezone
+     * Response: per-bucket status counts and average resolution time, resolution time distribution
+     */
+    @GetMapping("/aggregate")
+    public ResponseEntity<IncidentAggregateResponse> aggregateIncidents(
+            @RequestParam(defaultValue = "day") String bucket,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String tz) {
+        try {
+            ZoneId zone = tz != null && !tz.isEmpty() ? ZoneId.of(tz) : ZoneId.systemDefault();
+            return ResponseEntity.ok(reportService.aggregateIncidents(bucket, from, to, zone));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            log.error("Invalid aggregation request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (Exception e) {
+            log.error("Error aggregating incidents", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Latency percentiles from daily quantile sketches
+     * GET /api/reports/percentiles?metric=resolution&from=2024-01-01&to=2024-01-31&segmentId=3
+     * metric: resolution (detection -> resolution) | confirmation (detection -> confirmation)
+     * Response: count, p50, p90, p95, p99 in minutes
+     */
+    @GetMapping("/percentiles")
+    public ResponseEntity<Map<String, Object>> getLatencyPercentiles(
+            @RequestParam(defaultValue = "resolution") String metric,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long segmentId) {
+        try {
+            return ResponseEntity.ok(reportService.getLatencyPercentiles(metric, from, to, segmentId));
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid percentile request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (Exception e) {
+            log.error("Error getting latency percentiles", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Recompute incident rollups for a date range (e.g. after a bulk import)
+     * POST /api/reports/rollups/backfill?from=2024-01-01&to=2024-01-31
+     * Response: number of days rebuilt
+     */
+    @PostMapping("/rollups/backfill")
+    public ResponseEntity<Map<String, Object>> backfillRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            int days = incidentRollupService.backfill(from, to);
+            return ResponseEntity.ok(Map.of("from", from, "to", to, "days", days));
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid rollup backfill request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (IllegalStateException e) {
+            log.warn("Rollup backfill rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            log.error("Error backfilling rollups", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Stream all incidents detected in a date range, for audits
+     * GET /api/reports/export?format=csv&from=2024-01-01&to=2024-12-31&gzip=true
+     * format: csv | ndjson; from/to: optional inclusive dates; gzip: send a .gz attachment
+     * Response: file download written row by row from a streamed result set;
+     * 429 with Retry-After while the maximum number of exports is already running
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportIncidents(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        IncidentExportService.Format exportFormat;
+        try {
+            exportFormat = IncidentExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid export format: {}", format);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        if (from != null && to != null && to.isBefore(from)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        LocalDateTime fromTime = from != null ? from.atStartOfDay() : null;
+        LocalDateTime toTime = to != null ? to.plusDays(1).atStartOfDay() : null;
+
+        if (!incidentExportService.tryReserve()) {
+            log.warn("Export rejected: {} exports already running", exportConfig.getMaxConcurrent());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(exportConfig.getRetryAfterSeconds()))
+                    .build();
+        }
+        StreamingResponseBody body = out -> {
+            try {
+                if (gzip) {
+                    GZIPOutputStream gzipOut = new GZIPOutputStream(out, 64 * 1024);
+                    incidentExportService.export(exportFormat, fromTime, toTime, gzipOut);
+                    gzipOut.finish();
+                } else {
+                    incidentExportService.export(exportFormat, fromTime, toTime, out);
+                }
+            } finally {
+                incidentExportService.release();
+            }
+        };
+
+        String filename = "incidents" + (from != null ? "-" + from : "") + (to != null ? "-" + to : "")
+                + "." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
 }
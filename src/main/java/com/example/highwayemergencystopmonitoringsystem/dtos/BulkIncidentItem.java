@@ -0,0 +1,23 @@
+package com.example.highwayemergencystopmonitoringsystem.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One incident of a bulk create request. Validated with the IncidentRequest constraints.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkIncidentItem {
+    private String clientRef; // optional caller reference, echoed in the result
+    private Double latitude;
+    private Double longitude;
+    private String description;
+    private List<String> images; // names of the multipart parts holding this incident's images
+}
@@ -0,0 +1,25 @@
+package com.example.highwayemergencystopmonitoringsystem.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one item of a bulk create request, in request order
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkIncidentResult {
+    private int index;
+    private String clientRef;
+    private Status status;
+    private Long incidentId; // set when CREATED
+    private String error; // set when INVALID
+
+    public enum Status {
+        CREATED, INVALID
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.highwayemergencystopmonitoringsystem.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IncidentAggregateBucket {
+    private LocalDateTime start; // bucket start, wall-clock time in the requested timezone
+    private long total;
+    private Map<String, Long> statusCounts;
+    private long resolvedCount; // incidents in the bucket with a resolution time
+    private Double averageResolutionMinutes;
+}
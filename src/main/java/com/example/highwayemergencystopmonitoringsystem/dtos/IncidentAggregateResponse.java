@@ -0,0 +1,23 @@
+package com.example.highwayemergencystopmonitoringsystem.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IncidentAggregateResponse {
+    private String bucket;   // HOUR, DAY or WEEK
+    private String timezone;
+    private LocalDate from;
+    private LocalDate to;    // inclusive
+    private List<IncidentAggregateBucket> buckets; // non-empty buckets only, oldest first
+    private Map<String, Long> resolutionDistribution; // resolution time ranges in minutes -> count
+}
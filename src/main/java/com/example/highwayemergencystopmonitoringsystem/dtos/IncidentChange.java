@@ -0,0 +1,19 @@
+package com.example.highwayemergencystopmonitoringsystem.dtos;
+
+import com.example.highwayemergencystopmonitoringsystem.events.IncidentChangedEvent;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One entry of the incident change log
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IncidentChange {
+    private long sequence;
+    private IncidentChangedEvent.Type type;
+    private Long incidentId;
+    private long timestamp; // epoch millis when the change was committed
+}
@@ -0,0 +1,20 @@
+package com.example.highwayemergencystopmonitoringsystem.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IncidentChangesResponse {
+    private String epoch;
+    private long sequence; // latest sequence; pass it as since on the next call
+    private boolean resetRequired; // the requested changes are no longer in the log: reload everything
+    private List<IncidentChange> changes; // oldest first
+    private List<IncidentResponse> incidents; // current state of each changed incident
+}
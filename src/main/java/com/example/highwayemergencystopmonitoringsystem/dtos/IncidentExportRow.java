@@ -0,0 +1,29 @@
+package com.example.highwayemergencystopmonitoringsystem.dtos;
+
+import com.example.highwayemergencystopmonitoringsystem.entities.Incident.IncidentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of the incident export, populated by a constructor query so streamed rows
+ * are never attached to the persistence context.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IncidentExportRow {
+    public static final String[] COLUMNS = {"id", "latitude", "longitude", "status", "description",
+            "detectionTime", "confirmationTime", "resolutionTime"};
+
+    private Long id;
+    private Double latitude;
+    private Double longitude;
+    private IncidentStatus status;
+    private String description;
+    private LocalDateTime detectionTime;
+    private LocalDateTime confirmationTime;
+    private LocalDateTime resolutionTime;
+}
@@ -14,4 +14,6 @@ public class IncidentImageResponse {
     private Long id;
     private String filePath;
     private LocalDateTime capturedAt;
+    private String thumbnailUrl; // SMALL thumbnail; generated asynchronously, so briefly missing after upload
+    private String previewUrl;   // PREVIEW thumbnail
 }
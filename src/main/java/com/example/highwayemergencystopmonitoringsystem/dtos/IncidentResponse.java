@@ -18,8 +18,10 @@ public class IncidentResponse {
     private Double latitude;
     private Double longitude;
     private String description;
+    private Long segmentId;
     private IncidentStatus status;
     private LocalDateTime detectionTime;
+    private LocalDateTime confirmationTime;
     private LocalDateTime resolutionTime;
     private List<IncidentImageResponse> images;
 }
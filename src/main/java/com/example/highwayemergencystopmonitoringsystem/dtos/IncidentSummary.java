@@ -0,0 +1,41 @@
+package com.example.highwayemergencystopmonitoringsystem.dtos;
+
+import com.example.highwayemergencystopmonitoringsystem.entities.Incident.IncidentStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Lightweight incident row for list and map views.
+ * Populated by a constructor query so only these columns are read; fields left null
+ * (not requested through ?fields=) are omitted from the JSON.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IncidentSummary {
+    public static final Set<String> FIELDS = Set.of("id", "latitude", "longitude", "status", "detectionTime", "thumbnail");
+
+    private Long id;
+    private Double latitude;
+    private Double longitude;
+    private IncidentStatus status;
+    private LocalDateTime detectionTime;
+    private String thumbnail; // file path of the first image
+    private String thumbnailUrl; // SMALL thumbnail of that image, set along with thumbnail
+    private Double distanceMeters; // only set by nearest-incident queries
+
+    /**
+     * Used by JPQL constructor expressions in IncidentRepository
+     */
+    public IncidentSummary(Long id, Double latitude, Double longitude, IncidentStatus status, LocalDateTime detectionTime) {
+        this(id, latitude, longitude, status, detectionTime, null, null, null);
+    }
+}
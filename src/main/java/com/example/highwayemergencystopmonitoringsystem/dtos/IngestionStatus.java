@@ -0,0 +1,29 @@
+package com.example.highwayemergencystopmonitoringsystem.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a report submitted to the asynchronous ingestion pipeline
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IngestionStatus {
+    private String trackingId;
+    private State state;
+    private Long incidentId; // set once persisted
+    private boolean duplicate; // merged into an active incident instead of creating one
+    private String error; // set when FAILED
+    private LocalDateTime acceptedAt;
+    private LocalDateTime updatedAt;
+
+    public enum State {
+        QUEUED, PERSISTED, STORED, COMPLETED, FAILED
+    }
+}
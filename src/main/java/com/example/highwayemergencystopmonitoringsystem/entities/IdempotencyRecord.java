@@ -0,0 +1,44 @@
+package com.example.highwayemergencystopmonitoringsystem.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Response recorded for an Idempotency-Key, replayed when the client retries the same request
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+    @Id
+    @Column(name = "idempotency_key", length = 191)
+    private String key; // SHA-256 of the principal name:scope:client key
+
+    @Column(nullable = false, length = 64)
+    private String requestHash; // SHA-256 of the request, to reject a key reused for a different request
+
+    @Column(nullable = false)
+    private int statusCode;
+
+    @Column(columnDefinition = "TEXT")
+    private String responseHeaders; // JSON object of header name -> values
+
+    @Column(columnDefinition = "MEDIUMTEXT")
+    private String responseBody; // JSON
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
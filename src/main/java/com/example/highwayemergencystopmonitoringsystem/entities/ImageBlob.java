@@ -0,0 +1,42 @@
+package com.example.highwayemergencystopmonitoringsystem.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One stored image file, shared by every IncidentImage with the same content
+ */
+@Entity
+@Table(name = "image_blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImageBlob {
+    @Id
+    @Column(length = 64)
+    private String sha256; // hex SHA-256 of the content; IncidentImage.contentSha256 refers to it
+
+    @Column(nullable = false)
+    private String filePath;
+
+    @Column(nullable = false, length = 50)
+    private String contentType;
+
+    @Column(nullable = false)
+    private Long sizeBytes;
+
+    @Column(nullable = false)
+    private Integer refCount; // IncidentImage rows referencing this content
+
+    @Column(length = 64)
+    private String packName; // pack file holding the content once compacted; null while it is a loose file
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
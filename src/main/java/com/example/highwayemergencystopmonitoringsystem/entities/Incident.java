@@ -5,20 +5,30 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "incidents")
+@Table(name = "incidents", indexes = {
+        @Index(name = "idx_incidents_detection_time_id", columnList = "detection_time, id"),
+        @Index(name = "idx_incidents_status_detection_time", columnList = "status, detection_time, id"),
+        @Index(name = "idx_incidents_latitude_longitude", columnList = "latitude, longitude"),
+        @Index(name = "idx_incidents_last_modified_time", columnList = "last_modified_time"),
+        @Index(name = "idx_incidents_segment_detection_time", columnList = "segment_id, detection_time")
+})
+@DynamicUpdate // status updates must not overwrite segment_id written by the backfill job
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Incident {
+    // Pooled sequence (emulated with a table on MySQL) so inserts can be JDBC-batched; see IdSequenceConfig
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "incident_seq")
+    @SequenceGenerator(name = "incident_seq", sequenceName = "incident_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -37,8 +47,14 @@ public class Incident {
     @Column(nullable = false, updatable = false)
     private LocalDateTime detectionTime;
 
+    private LocalDateTime confirmationTime;
+
     private LocalDateTime resolutionTime;
 
+    private LocalDateTime lastModifiedTime; // last status change, drives incremental rollups
+
+    private Long segmentId; // HighwaySegment containing the location, null when outside every segment
+
     @Builder.Default
     @OneToMany(mappedBy = "incident", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<IncidentImage> images = new ArrayList<>();
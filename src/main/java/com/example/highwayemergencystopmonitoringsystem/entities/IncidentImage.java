@@ -9,14 +9,17 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "incident_images")
+@Table(name = "incident_images", indexes = {
+        @Index(name = "idx_incident_images_content_sha256", columnList = "content_sha256")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class IncidentImage {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "incident_image_seq")
+    @SequenceGenerator(name = "incident_image_seq", sequenceName = "incident_image_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -26,6 +29,14 @@ public class IncidentImage {
     @Column(nullable = false)
     private String filePath;
 
+    @Column(length = 50)
+    private String contentType; // sniffed from the file's magic bytes at upload
+
+    @Column(length = 64)
+    private String contentSha256; // hex SHA-256 of the file, computed while streaming it to disk
+
+    private Long sizeBytes;
+
     @Column(nullable = false, updatable = false)
     private LocalDateTime capturedAt;
 }
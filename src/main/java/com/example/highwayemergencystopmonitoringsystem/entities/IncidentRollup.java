@@ -0,0 +1,55 @@
+package com.example.highwayemergencystopmonitoringsystem.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pre-aggregated incident counts per hour or day, segment and status (by detection time, server-local).
+ * Maintained by IncidentRollupService; rows are always rebuilt a whole day at a time.
+ */
+@Entity
+@Table(name = "incident_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_incident_rollups_bucket",
+                columnNames = {"granularity", "bucket_start", "segment_id", "status"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IncidentRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Granularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "segment_id", nullable = false)
+    private Long segmentId; // 0 when the incident has no segment
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Incident.IncidentStatus status;
+
+    @Column(nullable = false)
+    private Long incidentCount;
+
+    @Column(nullable = false)
+    private Long resolutionSecondsSum;
+
+    @Column(nullable = false)
+    private Long resolvedCount;
+
+    public enum Granularity {
+        HOUR, DAY
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.highwayemergencystopmonitoringsystem.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Serialized QuantileSketch of one latency metric for incidents detected on one day, per highway segment
+ */
+@Entity
+@Table(name = "latency_sketches", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_latency_sketches_day_segment_metric", columnNames = {"day", "segment_id", "metric"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LatencySketch {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate day;
+
+    @Column(name = "segment_id", nullable = false)
+    private Long segmentId; // 0 when the incident has no segment
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Metric metric;
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "MEDIUMBLOB")
+    private byte[] sketch;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    public enum Metric {
+        RESOLUTION,   // detection -> resolution
+        CONFIRMATION  // detection -> confirmation
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.highwayemergencystopmonitoringsystem.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "rollup_watermarks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RollupWatermark {
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    @Column(nullable = false)
+    private LocalDateTime watermark; // incidents modified at or after this time are not yet rolled up
+}
@@ -0,0 +1,26 @@
+package com.example.highwayemergencystopmonitoringsystem.events;
+
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentResponse;
+import com.example.highwayemergencystopmonitoringsystem.entities.Incident.IncidentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published by IncidentService on every incident mutation.
+ * In-memory views listen with @TransactionalEventListener so they only see committed changes.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class IncidentChangedEvent {
+
+    public enum Type {
+        CREATED, CONFIRMED, RESOLVED, IMAGE_ADDED,
+        IMAGES_UPDATED // existing images moved to new paths (e.g. by ImageDedupMigrationService)
+    }
+
+    private final Type type;
+    private final IncidentResponse incident;  // state after the change
+    private final IncidentStatus previousStatus; // null for CREATED
+}
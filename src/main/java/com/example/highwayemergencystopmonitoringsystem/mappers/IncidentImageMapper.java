@@ -2,11 +2,19 @@ package com.example.highwayemergencystopmonitoringsystem.mappers;
 
 import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentImageResponse;
 import com.example.highwayemergencystopmonitoringsystem.entities.IncidentImage;
+import com.example.highwayemergencystopmonitoringsystem.services.ThumbnailService;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", imports = ThumbnailService.class)
 public interface IncidentImageMapper {
+    @Mapping(target = "thumbnailUrl", expression = "java(ThumbnailService.url(incidentImage.getFilePath(), ThumbnailService.SMALL))")
+    @Mapping(target = "previewUrl", expression = "java(ThumbnailService.url(incidentImage.getFilePath(), ThumbnailService.PREVIEW))")
     IncidentImageResponse toResponse(IncidentImage incidentImage);
 
+    @Mapping(target = "incident", ignore = true)       // Set by the service
+    @Mapping(target = "contentType", ignore = true)    // Recorded by ImageStorageService from the stored content
+    @Mapping(target = "contentSha256", ignore = true)
+    @Mapping(target = "sizeBytes", ignore = true)
     IncidentImage toEntity(IncidentImageResponse response);
 }
@@ -5,10 +5,11 @@ import com.example.highwayemergencystopmonitoringsystem.entities.Incident;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", uses = IncidentImageMapper.class) // image elements get their thumbnail URLs
 public interface IncidentMapper {
     IncidentResponse toResponse(Incident incident);
 
     @Mapping(target = "images", ignore = true)  // Images handled separately in service
+    @Mapping(target = "lastModifiedTime", ignore = true)  // Stamped by the service on every change
     Incident toEntity(IncidentResponse response);
 }
@@ -0,0 +1,53 @@
+package com.example.highwayemergencystopmonitoringsystem.repositories;
+
+import com.example.highwayemergencystopmonitoringsystem.entities.ImageBlob;
+import com.example.highwayemergencystopmonitoringsystem.entities.Incident;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, String> {
+
+    /**
+     * Count one more reference to the content, creating its row on first use (MySQL upsert, safe under concurrency)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO image_blobs (sha256, file_path, content_type, size_bytes, ref_count, created_at) " +
+            "VALUES (:sha256, :filePath, :contentType, :sizeBytes, 1, :now) " +
+            "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1", nativeQuery = true)
+    int acquire(@Param("sha256") String sha256,
+                @Param("filePath") String filePath,
+                @Param("contentType") String contentType,
+                @Param("sizeBytes") long sizeBytes,
+                @Param("now") LocalDateTime now);
+
+    /**
+     * Blobs with a digest in (afterSha, toSha), in digest order
+     */
+    @Query("SELECT b FROM ImageBlob b WHERE b.sha256 > :afterSha AND b.sha256 < :toSha ORDER BY b.sha256")
+    List<ImageBlob> findAfterSha(@Param("afterSha") String afterSha, @Param("toSha") String toSha, Pageable pageable);
+
+    /**
+     * Loose blobs after afterSha whose every image belongs to an incident resolved before cutoff, in digest order
+     */
+    @Query("SELECT b FROM ImageBlob b WHERE b.packName IS NULL AND b.sha256 > :afterSha " +
+            "AND EXISTS (SELECT img FROM IncidentImage img WHERE img.contentSha256 = b.sha256) " +
+            "AND NOT EXISTS (SELECT img FROM IncidentImage img JOIN img.incident i WHERE img.contentSha256 = b.sha256 " +
+            "AND (i.status <> :resolved OR i.resolutionTime IS NULL OR i.resolutionTime >= :cutoff)) ORDER BY b.sha256")
+    List<ImageBlob> findPackable(@Param("afterSha") String afterSha,
+                                 @Param("resolved") Incident.IncidentStatus resolved,
+                                 @Param("cutoff") LocalDateTime cutoff,
+                                 Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE ImageBlob b SET b.packName = :packName WHERE b.sha256 IN :sha256s")
+    int markPacked(@Param("sha256s") Collection<String> sha256s, @Param("packName") String packName);
+}
@@ -1,12 +1,54 @@
 package com.example.highwayemergencystopmonitoringsystem.repositories;
 
 import com.example.highwayemergencystopmonitoringsystem.entities.IncidentImage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface IncidentImageRepository extends JpaRepository<IncidentImage, Long> {
     List<IncidentImage> findByIncidentId(Long incidentId);
+
+    /**
+     * Images of several incidents in one round trip, used to assemble list responses without N+1 queries
+     */
+    @Query("SELECT img FROM IncidentImage img WHERE img.incident.id IN :incidentIds ORDER BY img.incident.id, img.id")
+    List<IncidentImage> findByIncidentIdIn(@Param("incidentIds") Collection<Long> incidentIds);
+
+    /**
+     * First image (lowest id) per incident as [incidentId, filePath] rows, used as list/map thumbnail
+     */
+    @Query("SELECT img.incident.id, img.filePath FROM IncidentImage img WHERE img.id IN (" +
+            "SELECT MIN(x.id) FROM IncidentImage x WHERE x.incident.id IN :incidentIds GROUP BY x.incident.id)")
+    List<Object[]> findFirstImagePaths(@Param("incidentIds") Collection<Long> incidentIds);
+
+    /**
+     * Images in (afterId, toId] whose file is not yet a published image_blobs entry, in id order
+     */
+    @Query("SELECT img FROM IncidentImage img WHERE img.id > :afterId AND img.id <= :toId AND NOT EXISTS (" +
+            "SELECT b FROM ImageBlob b WHERE b.sha256 = img.contentSha256 AND b.filePath = img.filePath) ORDER BY img.id")
+    List<IncidentImage> findUnpublishedAfterId(@Param("afterId") Long afterId, @Param("toId") Long toId, Pageable pageable);
+
+    /**
+     * File paths of images after afterId as [id, filePath] rows, in id order
+     */
+    @Query("SELECT img.id, img.filePath FROM IncidentImage img WHERE img.id > :afterId ORDER BY img.id")
+    List<Object[]> findFilePathsAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Point the images of one content stored at fromPath at toPath
+     */
+    @Modifying
+    @Query("UPDATE IncidentImage img SET img.filePath = :toPath WHERE img.contentSha256 = :sha256 AND img.filePath = :fromPath")
+    int updateFilePath(@Param("sha256") String sha256, @Param("fromPath") String fromPath, @Param("toPath") String toPath);
+
+    @Query("SELECT MAX(img.id) FROM IncidentImage img")
+    Optional<Long> findMaxId();
 }
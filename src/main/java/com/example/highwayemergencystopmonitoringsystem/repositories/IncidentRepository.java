@@ -1,13 +1,25 @@
 package com.example.highwayemergencystopmonitoringsystem.repositories;
 
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentExportRow;
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentSummary;
 import com.example.highwayemergencystopmonitoringsystem.entities.Incident;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface IncidentRepository extends JpaRepository<Incident, Long> {
@@ -16,6 +28,24 @@ public interface IncidentRepository extends JpaRepository<Incident, Long> {
     List<Incident> findByDetectionTimeAfter(LocalDateTime dateTime);
 
     List<Incident> findByStatusOrderByDetectionTimeDesc(Incident.IncidentStatus status);
+
+    long countByStatus(Incident.IncidentStatus status);
+
+    Optional<Incident> findFirstByOrderByDetectionTimeAsc();
+
+    /**
+     * Load an incident for a status transition; the row stays locked (SELECT ... FOR UPDATE) until the
+     * transaction ends, so concurrent transitions of the same incident run one after the other
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Incident i WHERE i.id = :id")
+    Optional<Incident> findByIdForUpdate(@Param("id") Long id);
+
+    @Query("SELECT i.id FROM Incident i WHERE i.status IN :statuses")
+    List<Long> findIdsByStatusIn(@Param("statuses") Collection<Incident.IncidentStatus> statuses);
+
+    List<Incident> findByStatusAndDetectionTimeAfterAndResolutionTimeBefore(
+            Incident.IncidentStatus status, LocalDateTime detectedAfter, LocalDateTime resolvedBefore);
     
     /**
      * Count incidents detected between two dates
@@ -32,4 +62,191 @@ public interface IncidentRepository extends JpaRepository<Incident, Long> {
      * Count incidents by status and date range
      */
     long countByStatusAndDetectionTimeBetween(Incident.IncidentStatus status, LocalDateTime startDate, LocalDateTime endDate);
+
+    /**
+     * First page of the keyset listing (recent first), filters are optional
+     */
+    @Query("SELECT i FROM Incident i " +
+            "WHERE (:status IS NULL OR i.status = :status) " +
+            "AND (:from IS NULL OR i.detectionTime >= :from) " +
+            "AND (:to IS NULL OR i.detectionTime < :to) " +
+            "ORDER BY i.detectionTime DESC, i.id DESC")
+    List<Incident> findPage(@Param("status") Incident.IncidentStatus status,
+                            @Param("from") LocalDateTime from,
+                            @Param("to") LocalDateTime to,
+                            Pageable pageable);
+
+    /**
+     * Next page of the keyset listing: rows strictly after (cursorTime, cursorId) in (detectionTime DESC, id DESC) order
+     */
+    @Query("SELECT i FROM Incident i " +
+            "WHERE (:status IS NULL OR i.status = :status) " +
+            "AND (:from IS NULL OR i.detectionTime >= :from) " +
+            "AND (:to IS NULL OR i.detectionTime < :to) " +
+            "AND (i.detectionTime < :cursorTime OR (i.detectionTime = :cursorTime AND i.id < :cursorId)) " +
+            "ORDER BY i.detectionTime DESC, i.id DESC")
+    List<Incident> findPageAfter(@Param("status") Incident.IncidentStatus status,
+                                 @Param("from") LocalDateTime from,
+                                 @Param("to") LocalDateTime to,
+                                 @Param("cursorTime") LocalDateTime cursorTime,
+                                 @Param("cursorId") Long cursorId,
+                                 Pageable pageable);
+
+    /**
+     * Summary projection of findPage: reads only the columns needed by list and map views
+     */
+    @Query("SELECT new com.example.highwayemergencystopmonitoringsystem.dtos.IncidentSummary(" +
+            "i.id, i.latitude, i.longitude, i.status, i.detectionTime) FROM Incident i " +
+            "WHERE (:status IS NULL OR i.status = :status) " +
+            "AND (:from IS NULL OR i.detectionTime >= :from) " +
+            "AND (:to IS NULL OR i.detectionTime < :to) " +
+            "ORDER BY i.detectionTime DESC, i.id DESC")
+    List<IncidentSummary> findSummaryPage(@Param("status") Incident.IncidentStatus status,
+                                          @Param("from") LocalDateTime from,
+                                          @Param("to") LocalDateTime to,
+                                          Pageable pageable);
+
+    /**
+     * Summary projection of findPageAfter
+     */
+    @Query("SELECT new com.example.highwayemergencystopmonitoringsystem.dtos.IncidentSummary(" +
+            "i.id, i.latitude, i.longitude, i.status, i.detectionTime) FROM Incident i " +
+            "WHERE (:status IS NULL OR i.status = :status) " +
+            "AND (:from IS NULL OR i.detectionTime >= :from) " +
+            "AND (:to IS NULL OR i.detectionTime < :to) " +
+            "AND (i.detectionTime < :cursorTime OR (i.detectionTime = :cursorTime AND i.id < :cursorId)) " +
+            "ORDER BY i.detectionTime DESC, i.id DESC")
+    List<IncidentSummary> findSummaryPageAfter(@Param("status") Incident.IncidentStatus status,
+                                               @Param("from") LocalDateTime from,
+                                               @Param("to") LocalDateTime to,
+                                               @Param("cursorTime") LocalDateTime cursorTime,
+                                               @Param("cursorId") Long cursorId,
+                                               Pageable pageable);
+
+    /**
+     * Summaries in id order, read in batches to load in-memory indexes without materialising the whole table
+     */
+    @Query("SELECT new com.example.highwayemergencystopmonitoringsystem.dtos.IncidentSummary(" +
+            "i.id, i.latitude, i.longitude, i.status, i.detectionTime) FROM Incident i " +
+            "WHERE i.id > :afterId ORDER BY i.id")
+    List<IncidentSummary> findSummariesAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Rows for the in-memory search index in id order, read in batches.
+     * Rows: [id, description, status, detectionTime]
+     */
+    @Query("SELECT i.id, i.description, i.status, i.detectionTime FROM Incident i WHERE i.id > :afterId ORDER BY i.id")
+    List<Object[]> findSearchableAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Bounding-box range scan, used while the in-memory geo index is still loading
+     */
+    @Query("SELECT new com.example.highwayemergencystopmonitoringsystem.dtos.IncidentSummary(" +
+            "i.id, i.latitude, i.longitude, i.status, i.detectionTime) FROM Incident i " +
+            "WHERE i.latitude BETWEEN :minLat AND :maxLat AND i.longitude BETWEEN :minLon AND :maxLon " +
+            "AND (:status IS NULL OR i.status = :status) " +
+            "ORDER BY i.detectionTime DESC")
+    List<IncidentSummary> findSummariesWithin(@Param("minLat") double minLat,
+                                              @Param("maxLat") double maxLat,
+                                              @Param("minLon") double minLon,
+                                              @Param("maxLon") double maxLon,
+                                              @Param("status") Incident.IncidentStatus status,
+                                              Pageable pageable);
+
+    /**
+     * Per-bucket, per-status counts and resolution time sums (seconds) for detections in [from, to).
+     * Buckets are fixed-width windows of bucketSeconds counted from origin.
+     * Rows: [bucketIndex, status, incidentCount, resolutionSeconds, resolvedCount]
+     */
+    @Query(value = "SELECT TIMESTAMPDIFF(SECOND, :origin, i.detection_time) DIV :bucketSeconds AS bucket_index, " +
+            "i.status AS status, COUNT(*) AS incident_count, " +
+            "COALESCE(SUM(TIMESTAMPDIFF(SECOND, i.detection_time, i.resolution_time)), 0) AS resolution_seconds, " +
+            "COUNT(i.resolution_time) AS resolved_count " +
+            "FROM incidents i WHERE i.detection_time >= :from AND i.detection_time < :to " +
+            "GROUP BY bucket_index, i.status ORDER BY bucket_index",
+            nativeQuery = true)
+    List<Object[]> aggregateByBucket(@Param("origin") LocalDateTime origin,
+                                     @Param("bucketSeconds") long bucketSeconds,
+                                     @Param("from") LocalDateTime from,
+                                     @Param("to") LocalDateTime to);
+
+    /**
+     * Resolution time distribution for detections in [from, to)
+     * Rows: [rangeIndex (0: <15m, 1: 15-30m, 2: 30-60m, 3: 1-2h, 4: >2h), count]
+     */
+    @Query(value = "SELECT CASE " +
+            "WHEN TIMESTAMPDIFF(MINUTE, i.detection_time, i.resolution_time) < 15 THEN 0 " +
+            "WHEN TIMESTAMPDIFF(MINUTE, i.detection_time, i.resolution_time) < 30 THEN 1 " +
+            "WHEN TIMESTAMPDIFF(MINUTE, i.detection_time, i.resolution_time) < 60 THEN 2 " +
+            "WHEN TIMESTAMPDIFF(MINUTE, i.detection_time, i.resolution_time) < 120 THEN 3 " +
+            "ELSE 4 END AS range_index, COUNT(*) " +
+            "FROM incidents i WHERE i.resolution_time IS NOT NULL " +
+            "AND i.detection_time >= :from AND i.detection_time < :to " +
+            "GROUP BY range_index",
+            nativeQuery = true)
+    List<Object[]> resolutionDistribution(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Whole-table totals per status, used to seed in-memory counters.
+     * Rows: [status, incidentCount, resolutionSeconds, resolvedCount, minResolutionSeconds, maxResolutionSeconds]
+     */
+    @Query(value = "SELECT i.status, COUNT(*), " +
+            "COALESCE(SUM(TIMESTAMPDIFF(SECOND, i.detection_time, i.resolution_time)), 0), " +
+            "COUNT(i.resolution_time), " +
+            "MIN(TIMESTAMPDIFF(SECOND, i.detection_time, i.resolution_time)), " +
+            "MAX(TIMESTAMPDIFF(SECOND, i.detection_time, i.resolution_time)) " +
+            "FROM incidents i GROUP BY i.status",
+            nativeQuery = true)
+    List<Object[]> summarizeByStatus();
+
+    /**
+     * Lifecycle timestamps in id order, read in batches to backfill latency sketches.
+     * Rows: [id, detectionTime, confirmationTime, resolutionTime, segmentId]
+     */
+    @Query("SELECT i.id, i.detectionTime, i.confirmationTime, i.resolutionTime, i.segmentId FROM Incident i " +
+            "WHERE i.id > :afterId AND (i.confirmationTime IS NOT NULL OR i.resolutionTime IS NOT NULL) " +
+            "ORDER BY i.id")
+    List<Object[]> findLifecycleTimesAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Distinct detection days of incidents whose status changed at or after the given time
+     */
+    @Query(value = "SELECT DISTINCT DATE(i.detection_time) FROM incidents i WHERE i.last_modified_time >= :since",
+            nativeQuery = true)
+    List<Object> findDetectionDaysModifiedSince(@Param("since") LocalDateTime since);
+
+    /**
+     * Export rows in detection order for detections in [from, to) (both optional).
+     * A fetch size of Integer.MIN_VALUE makes Connector/J stream this result set row by row instead of buffering
+     * it, without switching the whole datasource to cursor fetch; must be consumed inside a transaction and closed.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT new com.example.highwayemergencystopmonitoringsystem.dtos.IncidentExportRow(" +
+            "i.id, i.latitude, i.longitude, i.status, i.description, " +
+            "i.detectionTime, i.confirmationTime, i.resolutionTime) FROM Incident i " +
+            "WHERE (:from IS NULL OR i.detectionTime >= :from) " +
+            "AND (:to IS NULL OR i.detectionTime < :to) " +
+            "ORDER BY i.detectionTime, i.id")
+    Stream<IncidentExportRow> streamExportRows(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Coordinates in id order within (afterId, toId], for the segment backfill job; only unassigned incidents
+     * unless all is true. Rows: [id, latitude, longitude, segmentId]
+     */
+    @Query("SELECT i.id, i.latitude, i.longitude, i.segmentId FROM Incident i " +
+            "WHERE i.id > :afterId AND i.id <= :toId AND (:all = true OR i.segmentId IS NULL) ORDER BY i.id")
+    List<Object[]> findCoordinatesForSegmentBackfill(@Param("afterId") Long afterId,
+                                                     @Param("toId") Long toId,
+                                                     @Param("all") boolean all,
+                                                     Pageable pageable);
+
+    @Query("SELECT MAX(i.id) FROM Incident i")
+    Optional<Long> findMaxId();
+
+    /**
+     * Set the segment of a batch of incidents; also stamps last_modified_time so rollups of their days are rebuilt
+     */
+    @Modifying
+    @Query("UPDATE Incident i SET i.segmentId = :segmentId, i.lastModifiedTime = :now WHERE i.id IN :ids")
+    int assignSegment(@Param("segmentId") Long segmentId, @Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
 }
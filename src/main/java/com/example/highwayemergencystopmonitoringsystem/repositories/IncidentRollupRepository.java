@@ -0,0 +1,59 @@
+package com.example.highwayemergencystopmonitoringsystem.repositories;
+
+import com.example.highwayemergencystopmonitoringsystem.entities.IncidentRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface IncidentRollupRepository extends JpaRepository<IncidentRollup, Long> {
+
+    List<IncidentRollup> findByGranularityAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+            IncidentRollup.Granularity granularity, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Totals per status over daily rollups in [from, to)
+     * Rows: [status, incidentCount, resolutionSecondsSum, resolvedCount]
+     */
+    @Query("SELECT r.status, SUM(r.incidentCount), SUM(r.resolutionSecondsSum), SUM(r.resolvedCount) " +
+            "FROM IncidentRollup r WHERE r.granularity = 'DAY' " +
+            "AND r.bucketStart >= :from AND r.bucketStart < :to GROUP BY r.status")
+    List<Object[]> sumDailyByStatus(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Modifying
+    @Query("DELETE FROM IncidentRollup r WHERE r.bucketStart >= :from AND r.bucketStart < :to")
+    int deleteBuckets(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Hourly rollups for detections in [from, to), straight from the incidents table
+     */
+    @Modifying
+    @Query(value = "INSERT INTO incident_rollups " +
+            "(granularity, bucket_start, segment_id, status, incident_count, resolution_seconds_sum, resolved_count) " +
+            "SELECT 'HOUR', DATE_FORMAT(i.detection_time, '%Y-%m-%d %H:00:00') AS hour_start, " +
+            "COALESCE(i.segment_id, 0) AS segment, i.status, COUNT(*), " +
+            "COALESCE(SUM(TIMESTAMPDIFF(SECOND, i.detection_time, i.resolution_time)), 0), COUNT(i.resolution_time) " +
+            "FROM incidents i WHERE i.detection_time >= :from AND i.detection_time < :to " +
+            "GROUP BY hour_start, segment, i.status",
+            nativeQuery = true)
+    int insertHourly(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Daily rollup for the day starting at dayStart, summed from its hourly rollups
+     */
+    @Modifying
+    @Query(value = "INSERT INTO incident_rollups " +
+            "(granularity, bucket_start, segment_id, status, incident_count, resolution_seconds_sum, resolved_count) " +
+            "SELECT 'DAY', :dayStart, r.segment_id, r.status, SUM(r.incident_count), " +
+            "SUM(r.resolution_seconds_sum), SUM(r.resolved_count) " +
+            "FROM incident_rollups r WHERE r.granularity = 'HOUR' " +
+            "AND r.bucket_start >= :dayStart AND r.bucket_start < :dayEnd " +
+            "GROUP BY r.segment_id, r.status",
+            nativeQuery = true)
+    int insertDaily(@Param("dayStart") LocalDateTime dayStart, @Param("dayEnd") LocalDateTime dayEnd);
+}
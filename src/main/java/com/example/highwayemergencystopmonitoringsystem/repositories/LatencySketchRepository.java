@@ -0,0 +1,13 @@
+package com.example.highwayemergencystopmonitoringsystem.repositories;
+
+import com.example.highwayemergencystopmonitoringsystem.entities.LatencySketch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface LatencySketchRepository extends JpaRepository<LatencySketch, Long> {
+    Optional<LatencySketch> findByDayAndSegmentIdAndMetric(LocalDate day, Long segmentId, LatencySketch.Metric metric);
+}
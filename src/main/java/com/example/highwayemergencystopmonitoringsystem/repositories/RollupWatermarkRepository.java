@@ -0,0 +1,9 @@
+package com.example.highwayemergencystopmonitoringsystem.repositories;
+
+import com.example.highwayemergencystopmonitoringsystem.entities.RollupWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RollupWatermarkRepository extends JpaRepository<RollupWatermark, String> {
+}
@@ -0,0 +1,135 @@
+package com.example.highwayemergencystopmonitoringsystem.services;
+
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentResponse;
+import com.example.highwayemergencystopmonitoringsystem.entities.Incident;
+import com.example.highwayemergencystopmonitoringsystem.events.IncidentChangedEvent;
+import com.example.highwayemergencystopmonitoringsystem.repositories.IncidentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory index of active incidents (DETECTED + CONFIRMED) for the dashboard.
+ * Loaded at startup and updated after commit from IncidentChangedEvent.
+ * Readers get an immutable, pre-sorted snapshot (recent first) without touching the database.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ActiveIncidentIndex {
+
+    private static final List<Incident.IncidentStatus> ACTIVE_STATUSES =
+            List.of(Incident.IncidentStatus.DETECTED, Incident.IncidentStatus.CONFIRMED);
+
+    private static final Comparator<IncidentResponse> RECENT_FIRST = Comparator
+            .comparing(IncidentResponse::getDetectionTime)
+            .thenComparing(IncidentResponse::getId)
+            .reversed();
+
+    private final IncidentService incidentService;
+    private final IncidentRepository incidentRepository;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Map<Long, IncidentResponse> incidentsById = new HashMap<>(); // guarded by writeLock
+    private volatile List<IncidentResponse> snapshot = List.of();
+
+    /**
+     * Active incidents ordered by detection time (recent first)
+     */
+    public List<IncidentResponse> getActiveIncidents() {
+        return snapshot;
+    }
+
+    public List<IncidentResponse> getActiveIncidents(Incident.IncidentStatus status) {
+        return snapshot.stream()
+                .filter(incident -> incident.getStatus() == status)
+                .toList();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Reload the index from the database. Lifecycle events arriving meanwhile wait for the lock
+     * and are applied on top of the reloaded state.
+     */
+    public int rebuild() {
+        writeLock.lock();
+        try {
+            incidentsById.clear();
+            for (Incident.IncidentStatus status : ACTIVE_STATUSES) {
+                for (IncidentResponse incident : incidentService.listIncidentsByStatus(status)) {
+                    incidentsById.put(incident.getId(), incident);
+                }
+            }
+            publishSnapshot();
+            log.info("Active incident index rebuilt with {} incidents", incidentsById.size());
+            return incidentsById.size();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIncidentChanged(IncidentChangedEvent event) {
+        IncidentResponse incident = event.getIncident();
+        writeLock.lock();
+        try {
+            if (ACTIVE_STATUSES.contains(incident.getStatus())) {
+                incidentsById.put(incident.getId(), incident);
+            } else {
+                incidentsById.remove(incident.getId());
+            }
+            publishSnapshot();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Compare indexed ids with the active ids in the database
+     */
+    public Map<String, Object> checkConsistency() {
+        Set<Long> databaseIds = new HashSet<>(incidentRepository.findIdsByStatusIn(ACTIVE_STATUSES));
+        Set<Long> indexIds = new HashSet<>();
+        for (IncidentResponse incident : snapshot) {
+            indexIds.add(incident.getId());
+        }
+
+        Set<Long> missingFromIndex = new HashSet<>(databaseIds);
+        missingFromIndex.removeAll(indexIds);
+        Set<Long> staleInIndex = new HashSet<>(indexIds);
+        staleInIndex.removeAll(databaseIds);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("consistent", missingFromIndex.isEmpty() && staleInIndex.isEmpty());
+        result.put("indexSize", indexIds.size());
+        result.put("databaseSize", databaseIds.size());
+        result.put("missingFromIndex", missingFromIndex);
+        result.put("staleInIndex", staleInIndex);
+        if (!missingFromIndex.isEmpty() || !staleInIndex.isEmpty()) {
+            log.warn("Active incident index out of sync: missing={}, stale={}", missingFromIndex, staleInIndex);
+        }
+        return result;
+    }
+
+    private void publishSnapshot() {
+        List<IncidentResponse> sorted = new ArrayList<>(incidentsById.values());
+        sorted.sort(RECENT_FIRST);
+        snapshot = List.copyOf(sorted);
+    }
+}
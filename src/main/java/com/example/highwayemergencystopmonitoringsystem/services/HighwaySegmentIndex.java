@@ -0,0 +1,253 @@
+package com.example.highwayemergencystopmonitoringsystem.services;
+
+import com.example.highwayemergencystopmonitoringsystem.entities.HighwaySegment;
+import com.example.highwayemergencystopmonitoringsystem.repositories.HighwaySegmentRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * In-memory spatial index of highway segment geometries parsed from HighwaySegment.locationBounds.
+ * Accepted formats (coordinates in degrees):
+ * - "POLYGON((lon lat, lon lat, ...))" or "LINESTRING(lon lat, lon lat, ...)" (WKT)
+ * - "lat,lon;lat,lon;..." : a polyline along the carriageway, or a polygon when the first and last points are equal
+ * - "minLat,minLon,maxLat,maxLon" : a bounding rectangle
+ * Each geometry is registered in every grid cell its bounding box (plus the polyline buffer) touches.
+ * Lookups read an immutable snapshot without locking, so they add no measurable latency to ingestion.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HighwaySegmentIndex {
+
+    private static final double CELL_SIZE_DEGREES = 0.01; // ~1.1 km
+    private static final double POLYLINE_BUFFER_METERS = 150; // max distance from a polyline to belong to it
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * 6_371_008.8;
+
+    private final HighwaySegmentRepository highwaySegmentRepository;
+
+    private volatile Map<Long, List<Shape>> cells = Map.of();
+
+    @PostConstruct
+    public void load() {
+        reload();
+    }
+
+    /**
+     * Re-read all segments and swap in a new index. Segments with unparsable bounds are skipped.
+     */
+    public int reload() {
+        Map<Long, List<Shape>> next = new HashMap<>();
+        int loaded = 0;
+        for (HighwaySegment segment : highwaySegmentRepository.findAll()) {
+            if (segment.getLocationBounds() == null || segment.getLocationBounds().isBlank()) {
+                continue;
+            }
+            try {
+                Shape shape = parse(segment.getId(), segment.getLocationBounds());
+                double buffer = shape.closed() ? 0 : POLYLINE_BUFFER_METERS / METERS_PER_DEGREE;
+                double lonBuffer = buffer / Math.max(0.01, Math.cos(Math.toRadians(shape.maxAbsLatitude())));
+                for (int latCell = cellIndex(shape.minLat() - buffer); latCell <= cellIndex(shape.maxLat() + buffer); latCell++) {
+                    for (int lonCell = cellIndex(shape.minLon() - lonBuffer); lonCell <= cellIndex(shape.maxLon() + lonBuffer); lonCell++) {
+                        next.computeIfAbsent(key(latCell, lonCell), k -> new ArrayList<>()).add(shape);
+                    }
+                }
+                loaded++;
+            } catch (IllegalArgumentException e) {
+                log.warn("Skipping segment {} ({}): {}", segment.getId(), segment.getSegmentCode(), e.getMessage());
+            }
+        }
+        next.replaceAll((k, shapes) -> List.copyOf(shapes));
+        cells = next;
+        log.info("Highway segment index loaded {} segments into {} cells", loaded, next.size());
+        return loaded;
+    }
+
+    /**
+     * Segment containing the point: a polygon that contains it, else the closest polyline within
+     * POLYLINE_BUFFER_METERS; null when none matches
+     */
+    public Long findSegmentId(double latitude, double longitude) {
+        List<Shape> candidates = cells.get(key(cellIndex(latitude), cellIndex(longitude)));
+        if (candidates == null) {
+            return null;
+        }
+        Long closestId = null;
+        double closestMeters = POLYLINE_BUFFER_METERS;
+        for (Shape shape : candidates) {
+            if (shape.closed()) {
+                if (shape.contains(latitude, longitude)) {
+                    return shape.segmentId();
+                }
+            } else {
+                double meters = shape.distanceMeters(latitude, longitude);
+                if (meters <= closestMeters) {
+                    closestMeters = meters;
+                    closestId = shape.segmentId();
+                }
+            }
+        }
+        return closestId;
+    }
+
+    static Shape parse(Long segmentId, String bounds) {
+        String text = bounds.trim();
+        String upper = text.toUpperCase(Locale.ROOT);
+        List<double[]> points = new ArrayList<>(); // [lat, lon]
+        boolean closed;
+        if (upper.startsWith("POLYGON") || upper.startsWith("LINESTRING")) {
+            int open = text.lastIndexOf('(');
+            int close = text.indexOf(')');
+            if (open < 0 || close < open) {
+                throw new IllegalArgumentException("malformed WKT");
+            }
+            for (String pair : text.substring(open + 1, close).split(",")) {
+                String[] parts = pair.trim().split("\\s+");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("WKT coordinates must be 'lon lat'");
+                }
+                points.add(new double[]{parseDegrees(parts[1]), parseDegrees(parts[0])});
+            }
+            closed = upper.startsWith("POLYGON");
+        } else if (text.indexOf(';') < 0 && text.split(",").length == 4) {
+            String[] parts = text.split(",");
+            double minLat = parseDegrees(parts[0]);
+            double minLon = parseDegrees(parts[1]);
+            double maxLat = parseDegrees(parts[2]);
+            double maxLon = parseDegrees(parts[3]);
+            points.add(new double[]{minLat, minLon});
+            points.add(new double[]{minLat, maxLon});
+            points.add(new double[]{maxLat, maxLon});
+            points.add(new double[]{maxLat, minLon});
+            closed = true;
+        } else {
+            for (String pair : text.split(";")) {
+                String[] parts = pair.trim().split(",");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("points must be 'lat,lon' separated by ';'");
+                }
+                points.add(new double[]{parseDegrees(parts[0]), parseDegrees(parts[1])});
+            }
+            double[] first = points.get(0);
+            double[] last = points.get(points.size() - 1);
+            closed = points.size() >= 4 && first[0] == last[0] && first[1] == last[1];
+        }
+        if (points.size() < (closed ? 3 : 2)) {
+            throw new IllegalArgumentException("not enough points");
+        }
+
+        double[] lats = new double[points.size()];
+        double[] lons = new double[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            lats[i] = points.get(i)[0];
+            lons[i] = points.get(i)[1];
+            if (lats[i] < -90 || lats[i] > 90 || lons[i] < -180 || lons[i] > 180) {
+                throw new IllegalArgumentException("coordinate out of range");
+            }
+        }
+        return new Shape(segmentId, lats, lons, closed);
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static double parseDegrees(String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid coordinate '" + value.trim() + "'");
+        }
+    }
+
+    private static int cellIndex(double degrees) {
+        return (int) Math.floor(degrees / CELL_SIZE_DEGREES);
+    }
+
+    private static long key(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xffffffffL);
+    }
+
+    /**
+     * A polygon (closed) or polyline; vertices in degrees
+     */
+    record Shape(Long segmentId, double[] lats, double[] lons, boolean closed) {
+
+        double minLat() {
+            double min = Double.MAX_VALUE;
+            for (double lat : lats) {
+                min = Math.min(min, lat);
+            }
+            return min;
+        }
+
+        double maxLat() {
+            double max = -Double.MAX_VALUE;
+            for (double lat : lats) {
+                max = Math.max(max, lat);
+            }
+            return max;
+        }
+
+        double minLon() {
+            double min = Double.MAX_VALUE;
+            for (double lon : lons) {
+                min = Math.min(min, lon);
+            }
+            return min;
+        }
+
+        double maxLon() {
+            double max = -Double.MAX_VALUE;
+            for (double lon : lons) {
+                max = Math.max(max, lon);
+            }
+            return max;
+        }
+
+        double maxAbsLatitude() {
+            return Math.max(Math.abs(minLat()), Math.abs(maxLat()));
+        }
+
+        /**
+         * Even-odd ray casting
+         */
+        boolean contains(double latitude, double longitude) {
+            boolean inside = false;
+            for (int i = 0, j = lats.length - 1; i < lats.length; j = i++) {
+                if ((lats[i] > latitude) != (lats[j] > latitude)
+                        && longitude < (lons[j] - lons[i]) * (latitude - lats[i]) / (lats[j] - lats[i]) + lons[i]) {
+                    inside = !inside;
+                }
+            }
+            return inside;
+        }
+
+        /**
+         * Distance to the nearest polyline edge on a local equirectangular projection (accurate at segment scale)
+         */
+        double distanceMeters(double latitude, double longitude) {
+            double lonScale = Math.cos(Math.toRadians(latitude));
+            double best = Double.MAX_VALUE;
+            for (int i = 0; i + 1 < lats.length; i++) {
+                double ax = (lons[i] - longitude) * lonScale;
+                double ay = lats[i] - latitude;
+                double bx = (lons[i + 1] - longitude) * lonScale;
+                double by = lats[i + 1] - latitude;
+                double dx = bx - ax;
+                double dy = by - ay;
+                double lengthSquared = dx * dx + dy * dy;
+                double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, -(ax * dx + ay * dy) / lengthSquared));
+                double px = ax + t * dx;
+                double py = ay + t * dy;
+                best = Math.min(best, px * px + py * py);
+            }
+            return Math.sqrt(best) * METERS_PER_DEGREE;
+        }
+    }
+}
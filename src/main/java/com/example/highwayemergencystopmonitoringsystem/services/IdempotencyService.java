@@ -0,0 +1,239 @@
+package com.example.highwayemergencystopmonitoringsystem.services;
+
+import com.example.highwayemergencystopmonitoringsystem.configs.IdempotencyConfig;
+import com.example.highwayemergencystopmonitoringsystem.entities.IdempotencyRecord;
+import com.example.highwayemergencystopmonitoringsystem.repositories.IdempotencyRecordRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Idempotency-Key support for create endpoints.
+ * Keys belong to the authenticated principal: two clients that happen to pick the same key never see each other's
+ * requests. The first successful (2xx) response for a principal, scope and key is recorded in idempotency_keys and in an LRU cache in
+ * front of it; a retry with the same key gets the recorded status, headers and body back without running the
+ * action again. Failed responses are not recorded, so the client can retry them.
+ * Requests with the same key are serialised with striped locks: a retry that arrives while the original is still
+ * running waits for it and then replays its response. A key reused for a different request is rejected.
+ * The locks are per instance; across instances the primary key on idempotency_keys is the last line of defence.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final int LOCK_STRIPES = 256;
+    private static final int FINGERPRINT_BUFFER_SIZE = 64 * 1024;
+    private static final TypeReference<Map<String, List<String>>> HEADERS_TYPE = new TypeReference<>() {
+    };
+
+    private final IdempotencyConfig config;
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+
+    private final ReentrantLock[] stripes = createStripes();
+    private final ReentrantLock cacheLock = new ReentrantLock();
+    private Map<String, IdempotencyRecord> cache; // access-ordered LRU, guarded by cacheLock
+
+    @FunctionalInterface
+    public interface Action<T> {
+        ResponseEntity<T> run();
+    }
+
+    /**
+     * Run action once per principal, scope and key, replaying its recorded response on retries.
+     * Throws IllegalArgumentException for an invalid key, IllegalStateException when the key was used for a
+     * different request.
+     */
+    public <T> ResponseEntity<T> execute(String principal, String scope, String key, String requestHash,
+                                         Class<T> bodyType, Action<T> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        // Hashed so that any principal name fits the key column next to a maximum-length client key
+        String recordKey = sha256Hex(principal.getBytes(StandardCharsets.UTF_8)) + ":" + scope + ":" + key;
+        ReentrantLock lock = stripes[Math.floorMod(recordKey.hashCode(), LOCK_STRIPES)];
+        lock.lock();
+        try {
+            Optional<IdempotencyRecord> recorded = find(recordKey);
+            if (recorded.isPresent()) {
+                if (!recorded.get().getRequestHash().equals(requestHash)) {
+                    throw new IllegalStateException("Idempotency-Key " + key + " was used for a different request");
+                }
+                log.info("Replaying response for idempotency key {}", recordKey);
+                return replay(recorded.get(), bodyType);
+            }
+
+            ResponseEntity<T> response = action.run();
+            if (response.getStatusCode().is2xxSuccessful()) {
+                record(recordKey, requestHash, response);
+            }
+            return response;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * SHA-256 over the request values and the content of each file, so a different image under the same name and
+     * size is a different request
+     */
+    public static String fingerprint(List<MultipartFile> files, Object... values) throws IOException {
+        MessageDigest digest = sha256();
+        for (Object value : values) {
+            digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        byte[] buffer = new byte[FINGERPRINT_BUFFER_SIZE];
+        for (MultipartFile file : files) {
+            // Each file's own digest, so bytes cannot shift between neighbouring files
+            MessageDigest fileDigest = sha256();
+            try (InputStream in = file.getInputStream()) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    fileDigest.update(buffer, 0, read);
+                }
+            }
+            digest.update(fileDigest.digest());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Delete expired keys
+     */
+    @Scheduled(fixedDelay = 3_600_000)
+    @Transactional
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted = idempotencyRecordRepository.deleteExpired(now);
+        cacheLock.lock();
+        try {
+            cache().values().removeIf(record -> record.getExpiresAt().isBefore(now));
+        } finally {
+            cacheLock.unlock();
+        }
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    // ==================== Helper Methods ====================
+
+    private Optional<IdempotencyRecord> find(String recordKey) {
+        IdempotencyRecord record;
+        cacheLock.lock();
+        try {
+            record = cache().get(recordKey);
+        } finally {
+            cacheLock.unlock();
+        }
+        if (record == null) {
+            record = idempotencyRecordRepository.findById(recordKey).orElse(null);
+            if (record != null) {
+                cachePut(record);
+            }
+        }
+        if (record == null || record.getExpiresAt().isBefore(LocalDateTime.now())) {
+            return Optional.empty();
+        }
+        return Optional.of(record);
+    }
+
+    private <T> void record(String recordKey, String requestHash, ResponseEntity<T> response) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        response.getHeaders().forEach(headers::put);
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyRecord record = IdempotencyRecord.builder()
+                .key(recordKey)
+                .requestHash(requestHash)
+                .statusCode(response.getStatusCode().value())
+                .responseHeaders(objectMapper.writeValueAsString(headers))
+                .responseBody(response.getBody() != null ? objectMapper.writeValueAsString(response.getBody()) : null)
+                .createdAt(now)
+                .expiresAt(now.plusHours(config.getTtlHours()))
+                .build();
+        try {
+            // save() merges over an expired record with the same key
+            idempotencyRecordRepository.save(record);
+            cachePut(record);
+        } catch (RuntimeException e) {
+            // The action already succeeded: answer it, the client just loses replay for this key
+            log.error("Could not record idempotency key {}", recordKey, e);
+        }
+    }
+
+    private <T> ResponseEntity<T> replay(IdempotencyRecord record, Class<T> bodyType) {
+        HttpHeaders headers = new HttpHeaders();
+        if (record.getResponseHeaders() != null) {
+            objectMapper.readValue(record.getResponseHeaders(), HEADERS_TYPE).forEach(headers::addAll);
+        }
+        headers.set(REPLAYED_HEADER, "true");
+        T body = record.getResponseBody() != null ? objectMapper.readValue(record.getResponseBody(), bodyType) : null;
+        return ResponseEntity.status(record.getStatusCode()).headers(headers).body(body);
+    }
+
+    private void cachePut(IdempotencyRecord record) {
+        cacheLock.lock();
+        try {
+            cache().put(record.getKey(), record);
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    private Map<String, IdempotencyRecord> cache() {
+        if (cache == null) {
+            int capacity = config.getCacheSize();
+            cache = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, IdempotencyRecord> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+        return cache;
+    }
+
+    private static String sha256Hex(byte[] bytes) {
+        return HexFormat.of().formatHex(sha256().digest(bytes));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static ReentrantLock[] createStripes() {
+        ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.highwayemergencystopmonitoringsystem.services;
+
+import com.example.highwayemergencystopmonitoringsystem.configs.WorkerThreads;
+import com.example.highwayemergencystopmonitoringsystem.entities.IncidentImage;
+import com.example.highwayemergencystopmonitoringsystem.repositories.IncidentImageRepository;
+import com.example.highwayemergencystopmonitoringsystem.services.ImageStorageService.StoredImage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves images uploaded before the content-addressable store into it.
+ * The id range is split between WORKERS threads; each walks its range in id-ordered batches, digests every file
+ * that is not yet a published blob, copies it to its content address (or finds the content already there),
+ * counts the reference and points the row at the shared file, all in one transaction per batch. The legacy
+ * files are deleted only after that transaction commits, so a failed batch leaves every row readable.
+ * Each incident whose rows moved gets an IMAGES_UPDATED change from the same transaction, so cached responses
+ * (ETags, ActiveIncidentIndex) stop handing out the legacy paths once they are gone.
+ * Rows whose file is missing or not an allowed image are left as they are. Safe to re-run and to run while
+ * uploads continue.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImageDedupMigrationService {
+
+    private static final int WORKERS = 4;
+    private static final int BATCH_SIZE = 500;
+
+    private final IncidentImageRepository incidentImageRepository;
+    private final IncidentService incidentService;
+    private final ImageStorageService imageStorageService;
+    private final TransactionTemplate transactionTemplate;
+    private final WorkerThreads workerThreads;
+
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    public Map<String, Object> migrate() {
+        if (!runLock.tryLock()) {
+            throw new IllegalStateException("Image deduplication is already running");
+        }
+        long started = System.currentTimeMillis();
+        ExecutorService workers = Executors.newFixedThreadPool(WORKERS, workerThreads.factory("image-dedup-"));
+        try {
+            long maxId = incidentImageRepository.findMaxId().orElse(0L);
+            long rangeSize = maxId / WORKERS + 1;
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int worker = 0; worker < WORKERS; worker++) {
+                long fromId = worker * rangeSize;
+                long toId = Math.min(maxId, fromId + rangeSize);
+                results.add(workers.submit(() -> migrateRange(fromId, toId)));
+            }
+
+            long[] totals = new long[4];
+            for (Future<long[]> result : results) {
+                long[] counts = result.get();
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += counts[i];
+                }
+            }
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("scanned", totals[0]);
+            summary.put("migrated", totals[1]);
+            summary.put("filesRemoved", totals[2]);
+            summary.put("skipped", totals[3]);
+            summary.put("durationMs", System.currentTimeMillis() - started);
+            log.info("Image deduplication finished: {}", summary);
+            return summary;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Image deduplication interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Image deduplication failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * Ids in (fromId, toId]. Returns [scanned, migrated, filesRemoved, skipped].
+     */
+    private long[] migrateRange(long fromId, long toId) throws IOException {
+        long[] counts = new long[4];
+        long[] afterId = {fromId};
+        int batchSize;
+        do {
+            List<Path> legacyFiles = new ArrayList<>();
+            Integer scanned = transactionTemplate.execute(status -> {
+                List<IncidentImage> batch = incidentImageRepository.findUnpublishedAfterId(afterId[0], toId, PageRequest.of(0, BATCH_SIZE));
+                Set<Long> touchedIncidents = new HashSet<>();
+                for (IncidentImage image : batch) {
+                    afterId[0] = image.getId();
+                    Path file = Paths.get(image.getFilePath());
+                    try {
+                        StoredImage inspected = Files.isRegularFile(file) ? imageStorageService.inspect(file) : null;
+                        if (inspected == null || inspected.contentType() == null) {
+                            log.warn("Image {} not migrated: {} is missing or not an image", image.getId(), file);
+                            counts[3]++;
+                            continue;
+                        }
+                        StoredImage stored = imageStorageService.publishCopy(inspected);
+                        if (!stored.path().equals(inspected.path())) {
+                            legacyFiles.add(file);
+                        }
+                        image.setFilePath(stored.filePath());
+                        image.setContentType(stored.contentType());
+                        image.setContentSha256(stored.sha256());
+                        image.setSizeBytes(stored.size());
+                        touchedIncidents.add(image.getIncident().getId());
+                        counts[1]++;
+                    } catch (IllegalArgumentException e) {
+                        log.warn("Image {} not migrated: {}", image.getId(), e.getMessage());
+                        counts[3]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                incidentService.publishImagesUpdated(touchedIncidents);
+                return batch.size();
+            });
+            batchSize = scanned != null ? scanned : 0;
+            counts[0] += batchSize;
+            for (Path legacyFile : legacyFiles) {
+                if (Files.deleteIfExists(legacyFile)) {
+                    counts[2]++;
+                }
+            }
+        } while (batchSize == BATCH_SIZE);
+        return counts;
+    }
+}
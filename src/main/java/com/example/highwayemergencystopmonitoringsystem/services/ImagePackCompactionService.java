@@ -0,0 +1,163 @@
+package com.example.highwayemergencystopmonitoringsystem.services;
+
+import com.example.highwayemergencystopmonitoringsystem.configs.ImagePackConfig;
+import com.example.highwayemergencystopmonitoringsystem.entities.ImageBlob;
+import com.example.highwayemergencystopmonitoringsystem.entities.Incident;
+import com.example.highwayemergencystopmonitoringsystem.repositories.ImageBlobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Compacts the images of long-resolved incidents into pack files (see ImagePackStore).
+ * Blobs whose every image belongs to an incident resolved more than resolved-days ago are read in digest order
+ * and appended to the current pack; past max-pack-megabytes the pack is sealed and a new one started. Only after
+ * a pack is sealed, and so readable, are its blobs marked with the pack's name in one transaction; the loose files
+ * are deleted after that commits. Until then every image is still served from its loose file, and afterwards
+ * ImageStorageService.open() finds it in the pack under the same path.
+ * If marking fails the pack stays readable and the loose files stay in place; the next run packs those blobs again.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImagePackCompactionService {
+
+    private static final int BATCH_SIZE = 500;
+    private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+
+    private final ImagePackConfig config;
+    private final ImageBlobRepository imageBlobRepository;
+    private final ImageStorageService imageStorageService;
+    private final ImagePackStore imagePackStore;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    @Scheduled(cron = "${incident.pack.cron:0 30 3 * * *}")
+    public void compactScheduled() {
+        try {
+            compact();
+        } catch (IllegalStateException e) {
+            log.info("Scheduled image compaction skipped: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Scheduled image compaction failed", e);
+        }
+    }
+
+    /**
+     * Pack every eligible loose blob. Returns scanned, packed, missing and bytes counts and the packs written.
+     * Throws IllegalStateException when already running.
+     */
+    public Map<String, Object> compact() {
+        if (!runLock.tryLock()) {
+            throw new IllegalStateException("Image compaction is already running");
+        }
+        long started = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(config.getResolvedDays());
+        long maxPackBytes = config.getMaxPackMegabytes() * BYTES_PER_MEGABYTE;
+        long[] counts = new long[4]; // scanned, packed, missing, bytes
+        List<String> packNames = new ArrayList<>();
+        ImagePackStore.Writer writer = null;
+        List<Path> looseFiles = new ArrayList<>();
+        List<String> sha256s = new ArrayList<>();
+        try {
+            String afterSha = "";
+            List<ImageBlob> batch;
+            do {
+                batch = imageBlobRepository.findPackable(afterSha, Incident.IncidentStatus.RESOLVED, cutoff,
+                        PageRequest.of(0, BATCH_SIZE));
+                for (ImageBlob blob : batch) {
+                    afterSha = blob.getSha256();
+                    Path loose = ImageStorageService.locate(Paths.get(blob.getFilePath()));
+                    if (loose == null) {
+                        log.warn("Blob {} not packed: {} is missing", blob.getSha256(), blob.getFilePath());
+                        counts[2]++;
+                        continue;
+                    }
+                    if (writer == null) {
+                        writer = imagePackStore.create();
+                    }
+                    writer.append(blob.getSha256(), loose);
+                    looseFiles.add(loose);
+                    sha256s.add(blob.getSha256());
+                    if (writer.size() >= maxPackBytes) {
+                        counts[3] += writer.size();
+                        packNames.add(seal(writer, sha256s, looseFiles));
+                        counts[1] += sha256s.size();
+                        writer = null;
+                        looseFiles.clear();
+                        sha256s.clear();
+                    }
+                }
+                counts[0] += batch.size();
+            } while (batch.size() == BATCH_SIZE);
+            if (writer != null) {
+                counts[3] += writer.size();
+                packNames.add(seal(writer, sha256s, looseFiles));
+                counts[1] += sha256s.size();
+                writer = null;
+            }
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("scanned", counts[0]);
+            summary.put("packed", counts[1]);
+            summary.put("missing", counts[2]);
+            summary.put("bytesPacked", counts[3]);
+            summary.put("packs", packNames);
+            summary.put("durationMs", System.currentTimeMillis() - started);
+            log.info("Image compaction finished: {}", summary);
+            return summary;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Image compaction failed", e);
+        } finally {
+            closeQuietly(writer);
+            runLock.unlock();
+        }
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Seal the pack, record which blobs it holds and remove their loose files; returns the pack's name
+     */
+    private String seal(ImagePackStore.Writer writer, List<String> sha256s, List<Path> looseFiles) throws IOException {
+        String packName = writer.seal();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int start = 0; start < sha256s.size(); start += BATCH_SIZE) {
+                imageBlobRepository.markPacked(sha256s.subList(start, Math.min(start + BATCH_SIZE, sha256s.size())), packName);
+            }
+        });
+        for (Path looseFile : looseFiles) {
+            Files.deleteIfExists(looseFile);
+        }
+        // After the deletes, so no lookup can cache a loose file again (ImageStorageService.open re-checks it)
+        imageStorageService.evict(looseFiles);
+        return packName;
+    }
+
+    private static void closeQuietly(ImagePackStore.Writer writer) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.warn("Could not discard unsealed image pack", e);
+        }
+    }
+}
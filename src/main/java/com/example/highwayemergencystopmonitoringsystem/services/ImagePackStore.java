@@ -0,0 +1,229 @@
+package com.example.highwayemergencystopmonitoringsystem.services;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Append-only pack files holding many images each, for content that is rarely read any more.
+ * A pack is written once by a Writer: a PACK_MAGIC header and a reserved int, then the files' bytes back to back.
+ * Sealing it writes its index next to it: an INDEX_MAGIC header and the entry count, then one fixed-size entry
+ * per file (binary SHA-256, offset, length) sorted by digest. A pack becomes visible only once its index exists, so a pack left
+ * without one by a crash is deleted on startup.
+ * Indexes are memory-mapped and binary-searched; lookups do not allocate beyond the probe buffers and take no
+ * locks. Callers serve the bytes straight from the pack file at the entry's offset.
+ */
+@Service
+@Slf4j
+public class ImagePackStore {
+
+    public static final String PACK_DIR = "uploads/packs";
+    private static final String PACK_SUFFIX = ".pack";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final int PACK_MAGIC = 0x49504B31;  // "IPK1"
+    private static final int INDEX_MAGIC = 0x49505831; // "IPX1"
+    private static final int HEADER_BYTES = 8;
+    private static final int DIGEST_BYTES = 32;
+    private static final int ENTRY_BYTES = DIGEST_BYTES + 2 * Long.BYTES;
+
+    private final List<Pack> packs = new CopyOnWriteArrayList<>();
+
+    /**
+     * Where a packed file's bytes are
+     */
+    public record PackEntry(Path packFile, long offset, long length, long lastModified) {
+    }
+
+    private record Pack(Path packFile, MappedByteBuffer index, int count, long lastModified) {
+    }
+
+    @PostConstruct
+    public void load() throws IOException {
+        Path directory = Paths.get(PACK_DIR);
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + PACK_SUFFIX)) {
+            for (Path packFile : files) {
+                Path indexFile = indexFile(packFile);
+                if (Files.exists(indexFile)) {
+                    packs.add(open(packFile, indexFile));
+                } else {
+                    log.warn("Deleting pack {} left unsealed by an interrupted compaction", packFile);
+                    Files.delete(packFile);
+                }
+            }
+        }
+        log.info("Loaded {} image packs", packs.size());
+    }
+
+    /**
+     * The packed file with this digest, empty when no pack holds it
+     */
+    public Optional<PackEntry> find(String sha256) {
+        byte[] key = HexFormat.of().parseHex(sha256);
+        byte[] probe = new byte[DIGEST_BYTES];
+        for (Pack pack : packs) {
+            int low = 0;
+            int high = pack.count() - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int position = HEADER_BYTES + middle * ENTRY_BYTES;
+                pack.index().get(position, probe);
+                int compared = Arrays.compareUnsigned(probe, key);
+                if (compared < 0) {
+                    low = middle + 1;
+                } else if (compared > 0) {
+                    high = middle - 1;
+                } else {
+                    long offset = pack.index().getLong(position + DIGEST_BYTES);
+                    long length = pack.index().getLong(position + DIGEST_BYTES + Long.BYTES);
+                    return Optional.of(new PackEntry(pack.packFile(), offset, length, pack.lastModified()));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    public int packCount() {
+        return packs.size();
+    }
+
+    /**
+     * Start a new pack; only the calling thread may use the writer
+     */
+    public Writer create() throws IOException {
+        Path directory = Paths.get(PACK_DIR);
+        Files.createDirectories(directory);
+        return new Writer(directory.resolve("pack-" + UUID.randomUUID() + PACK_SUFFIX));
+    }
+
+    /**
+     * Appends files to one new pack. seal() publishes it; closing an unsealed writer deletes the pack.
+     */
+    public final class Writer implements Closeable {
+        private final Path packFile;
+        private final FileChannel channel;
+        private final List<byte[]> entries = new ArrayList<>();
+        private boolean sealed;
+
+        private Writer(Path packFile) throws IOException {
+            this.packFile = packFile;
+            this.channel = FileChannel.open(packFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(PACK_MAGIC).putInt(0);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+        }
+
+        /**
+         * Copy the file to the end of the pack (kernel to kernel where supported)
+         */
+        public void append(String sha256, Path source) throws IOException {
+            long offset = channel.position();
+            long length;
+            try (FileChannel input = FileChannel.open(source, StandardOpenOption.READ)) {
+                length = input.size();
+                long copied = 0;
+                while (copied < length) {
+                    long transferred = input.transferTo(copied, length - copied, channel);
+                    if (transferred <= 0) {
+                        throw new IOException("Image " + source + " ended after " + copied + " of " + length + " bytes");
+                    }
+                    copied += transferred;
+                }
+            }
+            channel.position(offset + length);
+            entries.add(ByteBuffer.allocate(ENTRY_BYTES)
+                    .put(HexFormat.of().parseHex(sha256))
+                    .putLong(offset)
+                    .putLong(length)
+                    .array());
+        }
+
+        public long size() throws IOException {
+            return channel.position();
+        }
+
+        public int count() {
+            return entries.size();
+        }
+
+        /**
+         * Flush the pack, write its index and make it visible to find(); returns the pack's name
+         */
+        public String seal() throws IOException {
+            channel.force(true);
+            channel.close();
+
+            entries.sort((a, b) -> Arrays.compareUnsigned(a, 0, DIGEST_BYTES, b, 0, DIGEST_BYTES));
+            Path indexFile = indexFile(packFile);
+            Path temp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+            try (FileChannel index = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + entries.size() * ENTRY_BYTES)
+                        .putInt(INDEX_MAGIC)
+                        .putInt(entries.size());
+                entries.forEach(buffer::put);
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    index.write(buffer);
+                }
+                index.force(true);
+            }
+            Files.move(temp, indexFile, StandardCopyOption.ATOMIC_MOVE);
+            sealed = true;
+            packs.add(open(packFile, indexFile));
+            log.info("Sealed pack {} with {} images ({} bytes)", packFile, entries.size(), Files.size(packFile));
+            return packFile.getFileName().toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!sealed) {
+                channel.close();
+                Files.deleteIfExists(packFile);
+            }
+        }
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static Pack open(Path packFile, Path indexFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (channel.size() < HEADER_BYTES || index.getInt(0) != INDEX_MAGIC) {
+                throw new IOException("Not an image pack index: " + indexFile);
+            }
+            int count = index.getInt(Integer.BYTES);
+            if (channel.size() != HEADER_BYTES + (long) count * ENTRY_BYTES) {
+                throw new IOException("Truncated image pack index: " + indexFile);
+            }
+            return new Pack(packFile, index, count, Files.getLastModifiedTime(packFile).toMillis());
+        }
+    }
+
+    private static Path indexFile(Path packFile) {
+        String name = packFile.getFileName().toString();
+        return packFile.resolveSibling(name.substring(0, name.length() - PACK_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+}
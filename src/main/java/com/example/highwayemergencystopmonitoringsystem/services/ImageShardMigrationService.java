@@ -0,0 +1,214 @@
+package com.example.highwayemergencystopmonitoringsystem.services;
+
+import com.example.highwayemergencystopmonitoringsystem.configs.WorkerThreads;
+import com.example.highwayemergencystopmonitoringsystem.entities.ImageBlob;
+import com.example.highwayemergencystopmonitoringsystem.repositories.ImageBlobRepository;
+import com.example.highwayemergencystopmonitoringsystem.repositories.IncidentImageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves content-addressed files from the flat layout into the sharded one (see ImageStorageService).
+ * The digest space is split between WORKERS threads; each walks its part of image_blobs in digest-ordered
+ * batches. For every blob still stored flat, the file is hard-linked at its sharded path, so both names read the
+ * same file, and the blob row and the incident_images rows pointing at the flat path are rewritten, in one
+ * transaction per batch. The flat names are removed only after that transaction commits. Thumbnails, which
+ * have no rows, are then moved one by one.
+ * Requests for a flat path keep working throughout and afterwards because ImageStorageService.open() looks in
+ * both layouts. Safe to re-run and to run while uploads continue.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImageShardMigrationService {
+
+    private static final int WORKERS = 4;
+    private static final int BATCH_SIZE = 500;
+    private static final String[] DIGEST_BOUNDS = {"", "4", "8", "c", "g"}; // one part of the hex digest space per worker
+
+    private final ImageBlobRepository imageBlobRepository;
+    private final IncidentImageRepository incidentImageRepository;
+    private final ImageStorageService imageStorageService;
+    private final TransactionTemplate transactionTemplate;
+    private final WorkerThreads workerThreads;
+
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    public Map<String, Object> migrate() {
+        if (!runLock.tryLock()) {
+            throw new IllegalStateException("Image shard migration is already running");
+        }
+        long started = System.currentTimeMillis();
+        ExecutorService workers = Executors.newFixedThreadPool(WORKERS, workerThreads.factory("image-shard-"));
+        try {
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int worker = 0; worker < WORKERS; worker++) {
+                String afterSha = DIGEST_BOUNDS[worker];
+                String toSha = DIGEST_BOUNDS[worker + 1];
+                results.add(workers.submit(() -> migrateRange(afterSha, toSha)));
+            }
+
+            long[] totals = new long[5];
+            for (Future<long[]> result : results) {
+                long[] counts = result.get();
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += counts[i];
+                }
+            }
+            long thumbnailsMoved = migrateThumbnails();
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("scanned", totals[0]);
+            summary.put("moved", totals[1]);
+            summary.put("imagesRewritten", totals[2]);
+            summary.put("filesRemoved", totals[3]);
+            summary.put("missing", totals[4]);
+            summary.put("thumbnailsMoved", thumbnailsMoved);
+            summary.put("durationMs", System.currentTimeMillis() - started);
+            log.info("Image shard migration finished: {}", summary);
+            return summary;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Image shard migration interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Image shard migration failed", e.getCause());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Moving thumbnails failed", e);
+        } finally {
+            workers.shutdownNow();
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * Blobs with a digest in (afterSha, toSha). Returns [scanned, moved, imagesRewritten, filesRemoved, missing].
+     */
+    private long[] migrateRange(String afterSha, String toSha) throws IOException {
+        long[] counts = new long[5];
+        String[] after = {afterSha};
+        int batchSize;
+        do {
+            List<Path> flatFiles = new ArrayList<>();
+            Integer scanned = transactionTemplate.execute(status -> {
+                List<ImageBlob> batch = imageBlobRepository.findAfterSha(after[0], toSha, PageRequest.of(0, BATCH_SIZE));
+                for (ImageBlob blob : batch) {
+                    after[0] = blob.getSha256();
+                    if (blob.getPackName() != null) {
+                        continue; // compacted: no loose file to move
+                    }
+                    Path sharded = imageStorageService.blobPath(blob.getSha256(), blob.getContentType());
+                    Path flat = ImageStorageService.otherLayout(sharded);
+                    boolean flatExists = flat != null && Files.isRegularFile(flat);
+                    if (!flatExists && sharded.equals(Paths.get(blob.getFilePath()))) {
+                        continue; // already sharded
+                    }
+                    try {
+                        if (flatExists) {
+                            link(flat, sharded);
+                        } else if (!Files.isRegularFile(sharded)) {
+                            log.warn("Blob {} not migrated: {} is missing", blob.getSha256(), blob.getFilePath());
+                            counts[4]++;
+                            continue;
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    String shardedPath = sharded.toString().replace("\\", "/");
+                    if (flat != null) {
+                        String flatPath = flat.toString().replace("\\", "/");
+                        counts[2] += incidentImageRepository.updateFilePath(blob.getSha256(), flatPath, shardedPath);
+                    }
+                    blob.setFilePath(shardedPath);
+                    if (flatExists) {
+                        flatFiles.add(flat);
+                    }
+                    counts[1]++;
+                }
+                return batch.size();
+            });
+            batchSize = scanned != null ? scanned : 0;
+            counts[0] += batchSize;
+            for (Path flatFile : flatFiles) {
+                if (Files.deleteIfExists(flatFile)) {
+                    counts[3]++;
+                }
+            }
+            // After the deletes, so no lookup can cache a flat file again (ImageStorageService.open re-checks it)
+            imageStorageService.evict(flatFiles);
+        } while (batchSize == BATCH_SIZE);
+        return counts;
+    }
+
+    /**
+     * Move thumbnails at the top of THUMBNAIL_DIR into their shard; returns how many were moved
+     */
+    private long migrateThumbnails() throws IOException {
+        Path directory = Paths.get(ThumbnailService.THUMBNAIL_DIR);
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        long moved = 0;
+        List<Path> flatFiles = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, Files::isRegularFile)) {
+            for (Path file : files) {
+                Path sharded = ImageStorageService.shard(directory, file.getFileName().toString());
+                if (sharded.equals(file)) {
+                    continue;
+                }
+                Files.createDirectories(sharded.getParent());
+                try {
+                    Files.move(file, sharded, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    Files.delete(file); // generated again in the sharded layout meanwhile
+                }
+                flatFiles.add(file);
+                moved++;
+            }
+        }
+        imageStorageService.evict(flatFiles);
+        return moved;
+    }
+
+    /**
+     * Give the flat file its sharded name too; copies (through a temporary name) where hard links are not supported
+     */
+    private static void link(Path flat, Path sharded) throws IOException {
+        Files.createDirectories(sharded.getParent());
+        try {
+            Files.createLink(sharded, flat);
+        } catch (FileAlreadyExistsException e) {
+            // Same content, published in the sharded layout meanwhile or linked by an earlier run
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            Path temp = sharded.resolveSibling(UUID.randomUUID() + ".upload");
+            Files.copy(flat, temp);
+            try {
+                Files.move(temp, sharded, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException exists) {
+                Files.delete(temp);
+            }
+        }
+    }
+}
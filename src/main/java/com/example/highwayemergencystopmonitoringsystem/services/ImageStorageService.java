@@ -0,0 +1,457 @@
+package com.example.highwayemergencystopmonitoringsystem.services;
+
+import com.example.highwayemergencystopmonitoringsystem.entities.ImageBlob;
+import com.example.highwayemergencystopmonitoringsystem.repositories.ImageBlobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressable image store.
+ * Uploads are streamed from the multipart part to a temporary file through a fixed BUFFER_SIZE buffer, so heap
+ * use per upload does not depend on the file size. The same pass computes the SHA-256 digest and sniffs the image
+ * type from the leading magic bytes; the sniffed type, not the client's Content-Type, decides whether the file is
+ * accepted and is what gets recorded.
+ * Publishing a file moves it to a path derived from its digest and counts a reference on its image_blobs row, so
+ * identical uploads share one file and one blob row; each IncidentImage row referencing it is one reference.
+ * Must be called inside a transaction when publishing. A published file is never deleted when that transaction rolls
+ * back: another upload of the same content may already be relying on it (see publish), so it stays until the next
+ * identical upload adopts it.
+ * Content-addressed files are sharded by the first two pairs of hex digits of their name
+ * (uploads/incidents/ab/cd/abcd...jpg) so no directory grows past a few thousand entries. Files stored before
+ * sharding stay at the top of their directory until ImageShardMigrationService moves them; open() finds a file
+ * in either layout, so paths recorded or handed out before the move keep working.
+ * For serving, open() resolves a stored path to its length, recorded type and a strong ETag, cached per path.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImageStorageService {
+
+    public static final String UPLOAD_ROOT = "uploads";
+    public static final String UPLOAD_DIR = "uploads/incidents";
+    private static final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5MB
+    private static final String[] ALLOWED_MIME_TYPES = {"image/jpeg", "image/png", "image/gif", "image/webp"};
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/jpeg", ".jpg", "image/png", ".png", "image/gif", ".gif", "image/webp", ".webp");
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int SNIFF_BYTES = 12;
+    private static final String TEMP_SUFFIX = ".upload";
+    private static final String UNKNOWN_TYPE = "application/octet-stream";
+    private static final Pattern SHA256_NAME = Pattern.compile("[0-9a-f]{64}(\\.\\w+)?");
+    private static final Pattern SHARDED_NAME = Pattern.compile("[0-9a-f]{4}.*");
+    private static final int FILE_CACHE_SIZE = 10_000;
+
+    private final ImageBlobRepository imageBlobRepository;
+    private final ImagePackStore imagePackStore;
+
+    private final ReentrantLock fileCacheLock = new ReentrantLock();
+    private final Map<Path, ImageFile> fileCache = new LinkedHashMap<>(16, 0.75f, true) { // LRU, guarded by fileCacheLock
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, ImageFile> eldest) {
+            return size() > FILE_CACHE_SIZE;
+        }
+    };
+
+    /**
+     * A file written or inspected by this service; contentType is null when the content is not an allowed image
+     */
+    public record StoredImage(Path path, String contentType, String sha256, long size) {
+
+        /**
+         * Path as recorded in incident_images.file_path, with forward slashes
+         */
+        public String filePath() {
+            return path.toString().replace("\\", "/");
+        }
+    }
+
+    /**
+     * A stored file as served: where its bytes are (a loose file from offset 0, or a range of a pack) and the
+     * validators for conditional requests
+     */
+    public record ImageFile(Path path, long offset, long length, String contentType, String etag, long lastModified) {
+    }
+
+    /**
+     * Checks that need no file content: presence, size and declared type
+     */
+    public void validate(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("Image file cannot be empty");
+        }
+
+        if (file.getSize() > MAX_FILE_SIZE) {
+            throw new IllegalArgumentException("Image file size exceeds 5MB limit");
+        }
+
+        if (!isAllowed(file.getContentType())) {
+            throw new IllegalArgumentException("Only JPEG, PNG, GIF, and WebP images are allowed");
+        }
+    }
+
+    /**
+     * Stream the file into the store and count a reference to its content
+     */
+    public StoredImage store(MultipartFile file) throws IOException {
+        return publish(write(file, Paths.get(UPLOAD_DIR)));
+    }
+
+    /**
+     * Stream the file into a temporary file in directory, digesting and sniffing it on the way.
+     * Throws IllegalArgumentException (and leaves nothing behind) when the content is not an allowed image.
+     */
+    public StoredImage write(MultipartFile file, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path path = directory.resolve(UUID.randomUUID() + TEMP_SUFFIX);
+        StoredImage written;
+        try (InputStream input = file.getInputStream();
+             FileChannel target = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            written = digest(input, target, path);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+        if (written.contentType() == null) {
+            Files.deleteIfExists(path);
+            throw new IllegalArgumentException("File content is not a JPEG, PNG, GIF or WebP image");
+        }
+        return written;
+    }
+
+    /**
+     * Digest and sniff an existing file without moving it
+     */
+    public StoredImage inspect(Path file) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            return digest(input, null, file);
+        }
+    }
+
+    /**
+     * Move a written file (e.g. staged by the ingestion pipeline) to its content address and count a reference.
+     * When the content is already stored the file is dropped.
+     */
+    public StoredImage publish(StoredImage image) throws IOException {
+        return publish(image, true);
+    }
+
+    /**
+     * Like publish, but copies: the source file is left for the caller to delete once its transaction commits
+     */
+    public StoredImage publishCopy(StoredImage image) throws IOException {
+        return publish(image, false);
+    }
+
+    public void delete(StoredImage image) {
+        try {
+            Files.deleteIfExists(image.path());
+        } catch (IOException e) {
+            log.warn("Could not delete image {}", image.path(), e);
+        }
+    }
+
+    /**
+     * The file at filePath (as recorded in incident_images.file_path or returned as a thumbnail URL), empty when
+     * there is none. A published blob is served with the type sniffed at upload and its digest as ETag; any other
+     * file under UPLOAD_ROOT (thumbnails, uploads not yet migrated) is sniffed once and validated by its size and
+     * modification time, which is as strong since stored files are never rewritten. A blob compacted into a pack
+     * (see ImagePackCompactionService) is found there when it is no longer a loose file.
+     * Throws IllegalArgumentException for a path outside UPLOAD_ROOT.
+     */
+    public Optional<ImageFile> open(String filePath) throws IOException {
+        Path path = Paths.get(filePath.replace("\\", "/")).normalize();
+        if (!path.startsWith(Paths.get(UPLOAD_ROOT)) || path.getNameCount() < 2) {
+            throw new IllegalArgumentException("Not a stored image: " + filePath);
+        }
+        fileCacheLock.lock();
+        try {
+            ImageFile cached = fileCache.get(path);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        } finally {
+            fileCacheLock.unlock();
+        }
+
+        Path located = path;
+        BasicFileAttributes attributes = attributes(path);
+        if (attributes == null) {
+            located = otherLayout(path);
+            attributes = located != null ? attributes(located) : null;
+        }
+        ImageFile file;
+        if (attributes != null) {
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            file = blobFile(located, attributes.size(), lastModified);
+            if (file == null) {
+                String contentType = sniff(located);
+                String etag = "\"" + Long.toHexString(attributes.size()) + "-" + Long.toHexString(lastModified) + "\"";
+                file = new ImageFile(located, 0, attributes.size(),
+                        contentType != null ? contentType : UNKNOWN_TYPE, etag, lastModified);
+            }
+        } else {
+            file = packedFile(path);
+            if (file == null) {
+                return Optional.empty();
+            }
+        }
+        fileCacheLock.lock();
+        try {
+            // Checked under the lock: once a file is gone, a lookup that read it earlier cannot cache it after evict()
+            if (Files.isRegularFile(file.path())) {
+                fileCache.put(path, file);
+            }
+        } finally {
+            fileCacheLock.unlock();
+        }
+        return Optional.of(file);
+    }
+
+    /**
+     * Forget cached lookups that resolved to any of these files; call after they were moved or deleted
+     */
+    public void evict(Collection<Path> files) {
+        fileCacheLock.lock();
+        try {
+            fileCache.values().removeIf(file -> files.contains(file.path()));
+        } finally {
+            fileCacheLock.unlock();
+        }
+    }
+
+    /**
+     * Where content with this digest is stored
+     */
+    public Path blobPath(String sha256, String contentType) {
+        return shard(Paths.get(UPLOAD_DIR), sha256 + EXTENSIONS.getOrDefault(contentType, ""));
+    }
+
+    /**
+     * directory/ab/cd/name for a name starting with four hex digits abcd, directory/name otherwise
+     */
+    static Path shard(Path directory, String name) {
+        if (!SHARDED_NAME.matcher(name).matches()) {
+            return directory.resolve(name);
+        }
+        return directory.resolve(name.substring(0, 2)).resolve(name.substring(2, 4)).resolve(name);
+    }
+
+    /**
+     * The same file in the other layout: the flat path of a sharded one and the reverse; null when not shardable
+     */
+    static Path otherLayout(Path path) {
+        String name = path.getFileName().toString();
+        Path directory = path.getParent();
+        if (directory == null || !SHARDED_NAME.matcher(name).matches()) {
+            return null;
+        }
+        Path parent = directory.getParent();
+        boolean sharded = parent != null && parent.getParent() != null
+                && directory.getFileName().toString().equals(name.substring(2, 4))
+                && parent.getFileName().toString().equals(name.substring(0, 2));
+        return sharded ? parent.getParent().resolve(name) : shard(directory, name);
+    }
+
+    /**
+     * The path in whichever layout holds the file, null when neither does
+     */
+    static Path locate(Path path) {
+        if (Files.isRegularFile(path)) {
+            return path;
+        }
+        Path other = otherLayout(path);
+        return other != null && Files.isRegularFile(other) ? other : null;
+    }
+
+    /**
+     * Image type from the leading bytes, null when not an allowed type
+     */
+    static String sniff(byte[] head) {
+        if (startsWith(head, 0, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(head, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "image/png";
+        }
+        if (startsWith(head, 0, 'G', 'I', 'F', '8', '7', 'a') || startsWith(head, 0, 'G', 'I', 'F', '8', '9', 'a')) {
+            return "image/gif";
+        }
+        if (startsWith(head, 0, 'R', 'I', 'F', 'F') && startsWith(head, 8, 'W', 'E', 'B', 'P')) {
+            return "image/webp";
+        }
+        return null;
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * The published blob stored at path (in either layout), null when the file is not one
+     */
+    private ImageFile blobFile(Path path, long length, long lastModified) {
+        String name = path.getFileName().toString();
+        if (!SHA256_NAME.matcher(name).matches() || !path.startsWith(Paths.get(UPLOAD_DIR))) {
+            return null;
+        }
+        String sha256 = name.substring(0, 64);
+        Optional<ImageBlob> blob = imageBlobRepository.findById(sha256);
+        if (blob.isEmpty()) {
+            return null;
+        }
+        return new ImageFile(path, 0, length, blob.get().getContentType(), "\"" + sha256 + "\"", lastModified);
+    }
+
+    /**
+     * The blob named by path in the pack holding it, null when it is not packed
+     */
+    private ImageFile packedFile(Path path) {
+        String name = path.getFileName().toString();
+        if (!SHA256_NAME.matcher(name).matches() || !path.startsWith(Paths.get(UPLOAD_DIR))) {
+            return null;
+        }
+        String sha256 = name.substring(0, 64);
+        Optional<ImagePackStore.PackEntry> entry = imagePackStore.find(sha256);
+        Optional<ImageBlob> blob = entry.isPresent() ? imageBlobRepository.findById(sha256) : Optional.empty();
+        if (blob.isEmpty()) {
+            return null;
+        }
+        return new ImageFile(entry.get().packFile(), entry.get().offset(), entry.get().length(),
+                blob.get().getContentType(), "\"" + sha256 + "\"", entry.get().lastModified());
+    }
+
+    private static BasicFileAttributes attributes(Path path) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return attributes.isRegularFile() ? attributes : null;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private static String sniff(Path path) throws IOException {
+        try (InputStream input = Files.newInputStream(path)) {
+            return sniff(input.readNBytes(SNIFF_BYTES));
+        }
+    }
+
+    private StoredImage publish(StoredImage image, boolean move) throws IOException {
+        // The file is placed before this transaction commits. On rollback it is deliberately left without a blob row:
+        // a concurrent upload of the same content may have found it here, dropped its own copy and be waiting on the
+        // image_blobs row lock, and a delete after rollback would race that upload's acquire. The file then serves
+        // the next identical upload, whose acquire records it; nothing references it in the meantime.
+        Path target = blobPath(image.sha256(), image.contentType());
+        if (!target.equals(image.path())) {
+            Files.createDirectories(target.getParent());
+            if (Files.exists(target)) {
+                if (move) {
+                    Files.delete(image.path());
+                }
+            } else {
+                // Through a temporary name so a concurrent reader never sees a partial blob
+                Path temp = target.resolveSibling(UUID.randomUUID() + TEMP_SUFFIX);
+                if (move) {
+                    Files.move(image.path(), temp);
+                } else {
+                    Files.copy(image.path(), temp);
+                }
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    Files.delete(temp); // same content stored concurrently
+                }
+            }
+        }
+        StoredImage stored = new StoredImage(target, image.contentType(), image.sha256(), image.size());
+        imageBlobRepository.acquire(image.sha256(), stored.filePath(), image.contentType(), image.size(), LocalDateTime.now());
+        return stored;
+    }
+
+    /**
+     * Read input to the end through one buffer, writing to target when given; returns the digest, sniffed type
+     * and size. Throws IllegalArgumentException past MAX_FILE_SIZE.
+     */
+    private static StoredImage digest(InputStream input, FileChannel target, Path path) throws IOException {
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        byte[] head = new byte[SNIFF_BYTES];
+        int headLength = 0;
+        long size = 0;
+        ReadableByteChannel source = Channels.newChannel(input);
+        while (source.read(buffer) != -1) {
+            buffer.flip();
+            if (headLength < SNIFF_BYTES) {
+                int count = Math.min(SNIFF_BYTES - headLength, buffer.remaining());
+                System.arraycopy(buffer.array(), buffer.position(), head, headLength, count);
+                headLength += count;
+            }
+            digest.update(buffer.array(), buffer.position(), buffer.remaining());
+            size += buffer.remaining();
+            while (target != null && buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+            buffer.clear();
+            if (size > MAX_FILE_SIZE) {
+                throw new IllegalArgumentException("Image file size exceeds 5MB limit");
+            }
+        }
+        String contentType = sniff(Arrays.copyOf(head, headLength));
+        return new StoredImage(path, contentType, HexFormat.of().formatHex(digest.digest()), size);
+    }
+
+    private static boolean startsWith(byte[] head, int offset, int... magic) {
+        if (head.length < offset + magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((head[offset + i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAllowed(String mimeType) {
+        for (String allowed : ALLOWED_MIME_TYPES) {
+            if (allowed.equals(mimeType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.highwayemergencystopmonitoringsystem.services;
+
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentChange;
+import com.example.highwayemergencystopmonitoringsystem.events.IncidentChangedEvent;
+import com.example.highwayemergencystopmonitoringsystem.websocket.IncidentWebSocketHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ordered log of committed incident mutations.
+ * Each change gets the next sequence number after its transaction commits (and after the in-memory indexes
+ * have applied it), is kept in a ring of the last LOG_CAPACITY changes and is broadcast on /topic/incidents
+ * carrying that number, so reconnecting clients can fetch exactly what they missed.
+ * The current sequence doubles as an ETag for polling clients; per-incident versions live in a fixed table
+ * of hashed slots, where collisions only cost a spurious 200, never a stale 304.
+ * Sequences restart with the process; the epoch tells clients when that happened. Bulk jobs that rewrite incidents
+ * without an event per row call advanceEpoch(), which invalidates every ETag and sends clients to a full reload.
+ */
+@Service
+@RequiredArgsConstructor
+public class IncidentChangeLog {
+
+    private static final int LOG_CAPACITY = 10_000;
+    private static final int INCIDENT_SLOTS = 1 << 16;
+
+    private final IncidentWebSocketHandler webSocketHandler;
+
+    private volatile long epochMillis = System.currentTimeMillis(); // written under lock
+    private volatile String epoch = Long.toString(epochMillis, 36);   // written under lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final IncidentChange[] changes = new IncidentChange[LOG_CAPACITY]; // guarded by lock, slot = sequence % capacity
+    private volatile long sequence = 0;                                        // written under lock
+    private final AtomicLongArray incidentVersions = new AtomicLongArray(INCIDENT_SLOTS);
+
+    /**
+     * Record a change to an incident, effective when the current transaction commits
+     */
+    public void record(IncidentChangedEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    append(event);
+                }
+            });
+        } else {
+            append(event);
+        }
+    }
+
+    /**
+     * Start a new epoch: every ETag handed out so far stops matching and clients catching up get resetRequired.
+     * For changes applied in bulk outside record(), after they committed.
+     */
+    public void advanceEpoch() {
+        lock.lock();
+        try {
+            epochMillis = Math.max(System.currentTimeMillis(), epochMillis + 1);
+            epoch = Long.toString(epochMillis, 36);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getEpoch() {
+        return epoch;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Changes with a sequence greater than since, oldest first; null when the log no longer holds all of them
+     */
+    public List<IncidentChange> changesSince(long since) {
+        lock.lock();
+        try {
+            if (since > sequence || since < sequence - LOG_CAPACITY) {
+                return null;
+            }
+            List<IncidentChange> result = new ArrayList<>((int) (sequence - since));
+            for (long next = since + 1; next <= sequence; next++) {
+                result.add(changes[(int) (next % LOG_CAPACITY)]);
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * ETag for responses that depend on every incident
+     */
+    public String etag() {
+        return "\"" + epoch + "-" + sequence + "\"";
+    }
+
+    /**
+     * ETag for responses that depend on every incident and on some other key (e.g. the current date)
+     */
+    public String etag(Object qualifier) {
+        return "\"" + epoch + "-" + sequence + "-" + qualifier + "\"";
+    }
+
+    /**
+     * ETag for a single incident
+     */
+    public String incidentEtag(Long incidentId) {
+        return "\"" + epoch + "-" + incidentVersions.get(slot(incidentId)) + "-" + incidentId + "\"";
+    }
+
+    private void append(IncidentChangedEvent event) {
+        Long incidentId = event.getIncident().getId();
+        // Broadcast under the lock so subscribers receive changes in sequence order
+        lock.lock();
+        try {
+            long next = sequence + 1;
+            changes[(int) (next % LOG_CAPACITY)] = new IncidentChange(next, event.getType(), incidentId,
+                    System.currentTimeMillis());
+            incidentVersions.accumulateAndGet(slot(incidentId), next, Math::max);
+            sequence = next;
+            webSocketHandler.broadcastChange(event, next, epoch);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int slot(Long incidentId) {
+        return Long.hashCode(incidentId * 0x9E3779B97F4A7C15L) & (INCIDENT_SLOTS - 1);
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.highwayemergencystopmonitoringsystem.services;
+
+import com.example.highwayemergencystopmonitoringsystem.configs.DeduplicationConfig;
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentRequest;
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentResponse;
+import com.example.highwayemergencystopmonitoringsystem.entities.Incident;
+import com.example.highwayemergencystopmonitoringsystem.events.IncidentChangedEvent;
+import com.example.highwayemergencystopmonitoringsystem.repositories.IncidentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ingestion-time deduplication of camera reports.
+ * Recent active incidents are kept in a spatio-temporal hash: (lat cell, lon cell, time bucket) with cells of
+ * radius-meters and buckets of window-seconds, so a lookup probes the neighbouring cells of the current and
+ * previous bucket only. A report within the radius of an incident last reported within the window is merged
+ * into it (images attached through addImages) instead of creating a row and a broadcast; each merge slides
+ * the incident's window forward.
+ * Creating and merging for the same area is serialised with striped locks over the probed cells.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IncidentDeduplicator {
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * 6_371_008.8;
+    private static final int LOCK_STRIPES = 256;
+
+    private final DeduplicationConfig config;
+    private final IncidentService incidentService;
+    private final IncidentRepository incidentRepository;
+
+    private final Map<CellKey, Map<Long, Report>> cells = new ConcurrentHashMap<>();
+    private final Map<Long, Report> reportsById = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes = createStripes();
+
+    public record Result(IncidentResponse incident, boolean duplicate) {
+    }
+
+    @FunctionalInterface
+    public interface Creator {
+        IncidentResponse create() throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface Merger {
+        IncidentResponse merge(Long incidentId) throws IOException;
+    }
+
+    /**
+     * Create an incident for the report, or merge it into an active incident nearby
+     */
+    public Result ingest(IncidentRequest request, List<MultipartFile> imageFiles) throws IOException {
+        return ingest(request,
+                () -> incidentService.createIncident(request, imageFiles),
+                incidentId -> imageFiles.isEmpty()
+                        ? incidentService.getIncidentById(incidentId)
+                        : incidentService.addImages(incidentId, imageFiles));
+    }
+
+    /**
+     * Run creator for a new report, or merger with the id of the active incident it duplicates.
+     * Either runs under the area's locks, so a concurrent report nearby waits for the incident to exist.
+     */
+    public Result ingest(IncidentRequest request, Creator creator, Merger merger) throws IOException {
+        if (!config.isEnabled()) {
+            return new Result(creator.create(), false);
+        }
+        double latitude = request.getLatitude();
+        double longitude = request.getLongitude();
+        long now = System.currentTimeMillis();
+
+        List<CellKey> probed = probedCells(latitude, longitude, now);
+        List<ReentrantLock> locks = lockStripes(probed);
+        try {
+            Report duplicate = findDuplicate(probed, latitude, longitude, now);
+            if (duplicate != null) {
+                IncidentResponse merged = merger.merge(duplicate.incidentId());
+                register(duplicate.incidentId(), duplicate.latitude(), duplicate.longitude(), now);
+                log.info("Report at ({}, {}) merged into incident {}", latitude, longitude, duplicate.incidentId());
+                return new Result(merged, true);
+            }
+            IncidentResponse created = creator.create();
+            register(created.getId(), latitude, longitude, now);
+            return new Result(created, false);
+        } finally {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
+    }
+
+    /**
+     * Seed with active incidents detected within the window before startup
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        LocalDateTime since = LocalDateTime.now().minusSeconds(config.getWindowSeconds());
+        for (Incident incident : incidentRepository.findByDetectionTimeAfter(since)) {
+            if (incident.getStatus() != Incident.IncidentStatus.RESOLVED) {
+                long detected = incident.getDetectionTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                register(incident.getId(), incident.getLatitude(), incident.getLongitude(), detected);
+            }
+        }
+    }
+
+    /**
+     * Resolved incidents stop absorbing new reports
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIncidentChanged(IncidentChangedEvent event) {
+        if (event.getIncident().getStatus() == Incident.IncidentStatus.RESOLVED) {
+            unregister(event.getIncident().getId());
+        }
+    }
+
+    /**
+     * Drop reports older than the window
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        long oldestBucket = timeBucket(System.currentTimeMillis()) - 1;
+        cells.keySet().removeIf(key -> key.timeBucket() < oldestBucket);
+        reportsById.values().removeIf(report -> report.key().timeBucket() < oldestBucket);
+    }
+
+    // ==================== Helper Methods ====================
+
+    private Report findDuplicate(List<CellKey> probed, double latitude, double longitude, long now) {
+        long windowMillis = config.getWindowSeconds() * 1000;
+        Report closest = null;
+        double closestMeters = config.getRadiusMeters();
+        for (CellKey key : probed) {
+            Map<Long, Report> cell = cells.get(key);
+            if (cell == null) {
+                continue;
+            }
+            for (Report report : cell.values()) {
+                if (now - report.reportedAt() > windowMillis) {
+                    continue;
+                }
+                double meters = IncidentGeoIndex.haversineMeters(latitude, longitude, report.latitude(), report.longitude());
+                if (meters <= closestMeters) {
+                    closestMeters = meters;
+                    closest = report;
+                }
+            }
+        }
+        return closest;
+    }
+
+    private void register(Long incidentId, double latitude, double longitude, long reportedAt) {
+        unregister(incidentId);
+        CellKey key = new CellKey(latCell(latitude), lonCell(longitude), timeBucket(reportedAt));
+        Report report = new Report(incidentId, latitude, longitude, reportedAt, key);
+        cells.computeIfAbsent(key, k -> new ConcurrentHashMap<>()).put(incidentId, report);
+        reportsById.put(incidentId, report);
+    }
+
+    private void unregister(Long incidentId) {
+        Report previous = reportsById.remove(incidentId);
+        if (previous != null) {
+            Map<Long, Report> cell = cells.get(previous.key());
+            if (cell != null) {
+                cell.remove(incidentId);
+            }
+        }
+    }
+
+    /**
+     * Cells within the radius of the point, in the current and previous time bucket
+     */
+    private List<CellKey> probedCells(double latitude, double longitude, long now) {
+        int latCell = latCell(latitude);
+        int lonCell = lonCell(longitude);
+        // Longitude cells shrink towards the poles: reach further to cover the radius
+        int lonReach = (int) Math.ceil(1 / Math.max(0.01, Math.cos(Math.toRadians(Math.abs(latitude) + cellDegrees()))));
+        long bucket = timeBucket(now);
+        List<CellKey> keys = new ArrayList<>();
+        for (long timeBucket = bucket - 1; timeBucket <= bucket; timeBucket++) {
+            for (int dLat = -1; dLat <= 1; dLat++) {
+                for (int dLon = -lonReach; dLon <= lonReach; dLon++) {
+                    keys.add(new CellKey(latCell + dLat, lonCell + dLon, timeBucket));
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Lock the stripes of the probed cells (ignoring time) in index order to avoid deadlocks
+     */
+    private List<ReentrantLock> lockStripes(List<CellKey> probed) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (CellKey key : probed) {
+            indexes.add(Math.floorMod(31 * key.latCell() + key.lonCell(), LOCK_STRIPES));
+        }
+        List<ReentrantLock> locks = new ArrayList<>();
+        for (int index : indexes) {
+            stripes[index].lock();
+            locks.add(stripes[index]);
+        }
+        return locks;
+    }
+
+    private double cellDegrees() {
+        return config.getRadiusMeters() / METERS_PER_DEGREE;
+    }
+
+    private int latCell(double latitude) {
+        return (int) Math.floor(latitude / cellDegrees());
+    }
+
+    private int lonCell(double longitude) {
+        return (int) Math.floor(longitude / cellDegrees());
+    }
+
+    private long timeBucket(long epochMillis) {
+        return epochMillis / (config.getWindowSeconds() * 1000);
+    }
+
+    private static ReentrantLock[] createStripes() {
+        ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
+    private record CellKey(int latCell, int lonCell, long timeBucket) {
+    }
+
+    private record Report(Long incidentId, double latitude, double longitude, long reportedAt, CellKey key) {
+    }
+}
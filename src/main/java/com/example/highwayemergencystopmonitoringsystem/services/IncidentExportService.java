@@ -0,0 +1,143 @@
+package com.example.highwayemergencystopmonitoringsystem.services;
+
+import com.example.highwayemergencystopmonitoringsystem.configs.ExportConfig;
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentExportRow;
+import com.example.highwayemergencystopmonitoringsystem.repositories.IncidentRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Writes incidents as CSV or NDJSON straight from a database cursor, one row at a time,
+ * so memory use does not depend on the size of the export.
+ * An export keeps its pooled connection for as long as the client downloads, so at most max-concurrent run at once.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IncidentExportService {
+
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    private final ExportConfig config;
+    private final IncidentRepository incidentRepository;
+    private final ObjectMapper objectMapper;
+
+    private Semaphore slots;
+
+    @PostConstruct
+    public void init() {
+        slots = new Semaphore(config.getMaxConcurrent());
+    }
+
+    /**
+     * Reserve a slot for one export; false when max-concurrent exports are running. Every reserved slot must be released.
+     */
+    public boolean tryReserve() {
+        return slots.tryAcquire();
+    }
+
+    public void release() {
+        slots.release();
+    }
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * Stream incidents detected in [from, to) (both optional) to out. Returns the number of rows written.
+     * The caller owns out and must close (or finish) it.
+     */
+    @Transactional(readOnly = true)
+    public long export(Format format, LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long rows = 0;
+        try (Stream<IncidentExportRow> stream = incidentRepository.streamExportRows(from, to)) {
+            if (format == Format.CSV) {
+                writer.write(String.join(",", IncidentExportRow.COLUMNS));
+                writer.write("\r\n");
+            }
+            Iterator<IncidentExportRow> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                IncidentExportRow row = iterator.next();
+                if (format == Format.CSV) {
+                    writeCsvRow(writer, row);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                }
+                if (++rows % FLUSH_EVERY_ROWS == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        log.info("Exported {} incidents as {} (from {} to {})", rows, format, from, to);
+        return rows;
+    }
+
+    private static void writeCsvRow(Writer writer, IncidentExportRow row) throws IOException {
+        writer.write(String.valueOf(row.getId()));
+        writer.write(',');
+        writer.write(csv(row.getLatitude()));
+        writer.write(',');
+        writer.write(csv(row.getLongitude()));
+        writer.write(',');
+        writer.write(csv(row.getStatus()));
+        writer.write(',');
+        writer.write(csv(row.getDescription()));
+        writer.write(',');
+        writer.write(csv(row.getDetectionTime()));
+        writer.write(',');
+        writer.write(csv(row.getConfirmationTime()));
+        writer.write(',');
+        writer.write(csv(row.getResolutionTime()));
+        writer.write("\r\n");
+    }
+
+    /**
+     * RFC 4180 field: empty for null, quoted when it contains a separator, quote or line break
+     */
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
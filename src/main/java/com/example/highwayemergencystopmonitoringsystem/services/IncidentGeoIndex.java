@@ -0,0 +1,399 @@
+package com.example.highwayemergencystopmonitoringsystem.services;
+
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentResponse;
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentSummary;
+import com.example.highwayemergencystopmonitoringsystem.entities.Incident;
+import com.example.highwayemergencystopmonitoringsystem.events.IncidentChangedEvent;
+import com.example.highwayemergencystopmonitoringsystem.repositories.IncidentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory geospatial index over incident coordinates.
+ * Incidents are bucketed into a uniform lat/lon grid (CELL_SIZE_DEGREES per cell); a second grid holds
+ * only active incidents so nearest-incident lookups for dispatch never scan resolved history.
+ * Loaded in id-ordered batches at startup and kept current from IncidentChangedEvent after commit.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IncidentGeoIndex {
+
+    private static final double CELL_SIZE_DEGREES = 0.05; // ~5.5 km
+    private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * EARTH_RADIUS_METERS;
+    private static final int LOAD_BATCH_SIZE = 10_000;
+
+    private static final Comparator<GeoPoint> RECENT_FIRST = Comparator
+            .comparing(GeoPoint::detectionTime)
+            .thenComparing(GeoPoint::id)
+            .reversed();
+
+    private final IncidentRepository incidentRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, GeoPoint> pointsById = new HashMap<>(); // guarded by lock
+    private final Grid allIncidents = new Grid();                   // guarded by lock
+    private final Grid activeIncidents = new Grid();                // guarded by lock
+    private volatile boolean ready = false;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Reload all incident coordinates from the database in batches of LOAD_BATCH_SIZE
+     */
+    public int rebuild() {
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pointsById.clear();
+            allIncidents.clear();
+            activeIncidents.clear();
+
+            long afterId = 0;
+            List<IncidentSummary> batch;
+            do {
+                batch = incidentRepository.findSummariesAfterId(afterId, PageRequest.of(0, LOAD_BATCH_SIZE));
+                for (IncidentSummary summary : batch) {
+                    upsert(new GeoPoint(summary.getId(), summary.getLatitude(), summary.getLongitude(),
+                            summary.getStatus(), summary.getDetectionTime()));
+                    afterId = summary.getId();
+                }
+            } while (batch.size() == LOAD_BATCH_SIZE);
+
+            ready = true;
+            log.info("Geo index loaded {} incidents in {} ms", pointsById.size(), System.currentTimeMillis() - started);
+            return pointsById.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIncidentChanged(IncidentChangedEvent event) {
+        IncidentResponse incident = event.getIncident();
+        lock.writeLock().lock();
+        try {
+            upsert(new GeoPoint(incident.getId(), incident.getLatitude(), incident.getLongitude(),
+                    incident.getStatus(), incident.getDetectionTime()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Incidents inside the bounding box, most recent first, at most limit rows
+     */
+    public List<IncidentSummary> findWithin(double minLat, double minLon, double maxLat, double maxLon,
+                                            Incident.IncidentStatus status, int limit) {
+        if (!ready) {
+            return incidentRepository.findSummariesWithin(minLat, maxLat, minLon, maxLon, status, PageRequest.of(0, limit));
+        }
+
+        // Min-heap on recency keeps the newest `limit` points seen so far
+        PriorityQueue<GeoPoint> newest = new PriorityQueue<>(RECENT_FIRST.reversed());
+        lock.readLock().lock();
+        try {
+            Grid grid = isActive(status) ? activeIncidents : allIncidents;
+            grid.forEachCell(minLat, minLon, maxLat, maxLon, cell -> {
+                for (GeoPoint point : cell) {
+                    if (point.latitude() < minLat || point.latitude() > maxLat
+                            || point.longitude() < minLon || point.longitude() > maxLon
+                            || (status != null && point.status() != status)) {
+                        continue;
+                    }
+                    newest.offer(point);
+                    if (newest.size() > limit) {
+                        newest.poll();
+                    }
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<GeoPoint> result = new ArrayList<>(newest);
+        result.sort(RECENT_FIRST);
+        return result.stream().map(point -> toSummary(point, null)).toList();
+    }
+
+    /**
+     * The k active (DETECTED/CONFIRMED) incidents nearest to the given point, closest first.
+     * Searches rings of grid cells outwards and stops once no unvisited cell can hold a closer incident, or once
+     * every active incident has been seen. When a ring would probe more cells than are occupied (few incidents far
+     * apart), the remaining occupied cells are visited directly instead.
+     */
+    public List<IncidentSummary> findNearestActive(double latitude, double longitude, int k) {
+        if (!ready) {
+            throw new IllegalStateException("Geo index is still loading");
+        }
+
+        // Max-heap on distance keeps the k closest candidates
+        PriorityQueue<Candidate> closest = new PriorityQueue<>(Comparator.comparingDouble(Candidate::distanceMeters).reversed());
+        lock.readLock().lock();
+        try {
+            if (activeIncidents.isEmpty()) {
+                return List.of();
+            }
+            int centerLat = Grid.cellIndex(latitude);
+            int centerLon = Grid.cellIndex(longitude);
+            int maxRing = activeIncidents.maxRingFrom(centerLat, centerLon);
+            int[] visited = {0};
+            Consumer<Collection<GeoPoint>> visit = cell -> {
+                visited[0] += cell.size();
+                for (GeoPoint point : cell) {
+                    double distance = haversineMeters(latitude, longitude, point.latitude(), point.longitude());
+                    if (closest.size() < k) {
+                        closest.offer(new Candidate(point, distance));
+                    } else if (distance < closest.peek().distanceMeters()) {
+                        closest.poll();
+                        closest.offer(new Candidate(point, distance));
+                    }
+                }
+            };
+
+            for (int ring = 0; ring <= maxRing && visited[0] < activeIncidents.size(); ring++) {
+                if (closest.size() == k && closest.peek().distanceMeters() < ringLowerBoundMeters(latitude, ring)) {
+                    break;
+                }
+                if (Grid.cellsInRing(ring) > activeIncidents.cellCount()) {
+                    activeIncidents.forEachCellFromRing(centerLat, centerLon, ring, visit);
+                    break;
+                }
+                activeIncidents.forEachCellInRing(centerLat, centerLon, ring, visit);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Candidate> result = new ArrayList<>(closest);
+        result.sort(Comparator.comparingDouble(Candidate::distanceMeters));
+        return result.stream().map(candidate -> toSummary(candidate.point(), candidate.distanceMeters())).toList();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private void upsert(GeoPoint point) {
+        GeoPoint previous = pointsById.put(point.id(), point);
+        if (previous != null) {
+            allIncidents.remove(previous);
+            activeIncidents.remove(previous);
+        }
+        allIncidents.add(point);
+        if (isActive(point.status())) {
+            activeIncidents.add(point);
+        }
+    }
+
+    private static boolean isActive(Incident.IncidentStatus status) {
+        return status == Incident.IncidentStatus.DETECTED || status == Incident.IncidentStatus.CONFIRMED;
+    }
+
+    /**
+     * Any point in a cell at Chebyshev distance `ring` from the center cell is at least (ring - 1) cells away
+     * along latitude or longitude. Longitude degrees are scaled by the smallest cosine in that band.
+     */
+    private static double ringLowerBoundMeters(double latitude, int ring) {
+        if (ring <= 1) {
+            return 0;
+        }
+        double offsetDegrees = (ring - 1) * CELL_SIZE_DEGREES;
+        double farthestLatitude = Math.min(90, Math.abs(latitude) + (ring + 1) * CELL_SIZE_DEGREES);
+        double lonScale = Math.cos(Math.toRadians(farthestLatitude));
+        return offsetDegrees * METERS_PER_DEGREE * Math.min(1, lonScale);
+    }
+
+    static double haversineMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static IncidentSummary toSummary(GeoPoint point, Double distanceMeters) {
+        return IncidentSummary.builder()
+                .id(point.id())
+                .latitude(point.latitude())
+                .longitude(point.longitude())
+                .status(point.status())
+                .detectionTime(point.detectionTime())
+                .distanceMeters(distanceMeters)
+                .build();
+    }
+
+    private record GeoPoint(Long id, double latitude, double longitude,
+                            Incident.IncidentStatus status, LocalDateTime detectionTime) {
+    }
+
+    private record Candidate(GeoPoint point, double distanceMeters) {
+    }
+
+    /**
+     * Uniform grid of CELL_SIZE_DEGREES cells keyed by packed (latCell, lonCell); each cell maps incident id to
+     * point, so a status change in a dense cell (an interchange) is a constant-time remove. Not thread-safe.
+     */
+    private static class Grid {
+        private final Map<Long, Map<Long, GeoPoint>> cells = new HashMap<>();
+        private int points = 0;
+        private int minLatCell = Integer.MAX_VALUE;
+        private int maxLatCell = Integer.MIN_VALUE;
+        private int minLonCell = Integer.MAX_VALUE;
+        private int maxLonCell = Integer.MIN_VALUE;
+
+        static int cellIndex(double degrees) {
+            return (int) Math.floor(degrees / CELL_SIZE_DEGREES);
+        }
+
+        private static long key(int latCell, int lonCell) {
+            return ((long) latCell << 32) | (lonCell & 0xffffffffL);
+        }
+
+        void add(GeoPoint point) {
+            int latCell = cellIndex(point.latitude());
+            int lonCell = cellIndex(point.longitude());
+            if (cells.computeIfAbsent(key(latCell, lonCell), k -> new HashMap<>()).put(point.id(), point) == null) {
+                points++;
+            }
+            minLatCell = Math.min(minLatCell, latCell);
+            maxLatCell = Math.max(maxLatCell, latCell);
+            minLonCell = Math.min(minLonCell, lonCell);
+            maxLonCell = Math.max(maxLonCell, lonCell);
+        }
+
+        void remove(GeoPoint point) {
+            long key = key(cellIndex(point.latitude()), cellIndex(point.longitude()));
+            Map<Long, GeoPoint> cell = cells.get(key);
+            if (cell != null && cell.remove(point.id()) != null) {
+                points--;
+                if (cell.isEmpty()) {
+                    cells.remove(key);
+                }
+            }
+        }
+
+        void clear() {
+            cells.clear();
+            points = 0;
+            minLatCell = Integer.MAX_VALUE;
+            maxLatCell = Integer.MIN_VALUE;
+            minLonCell = Integer.MAX_VALUE;
+            maxLonCell = Integer.MIN_VALUE;
+        }
+
+        boolean isEmpty() {
+            return cells.isEmpty();
+        }
+
+        int size() {
+            return points;
+        }
+
+        int cellCount() {
+            return cells.size();
+        }
+
+        static long cellsInRing(int ring) {
+            return ring == 0 ? 1 : 8L * ring;
+        }
+
+        /**
+         * Ring beyond which no occupied cell exists (extent bounds are only ever widened, so this is conservative)
+         */
+        int maxRingFrom(int latCell, int lonCell) {
+            return Math.max(
+                    Math.max(Math.abs(latCell - minLatCell), Math.abs(maxLatCell - latCell)),
+                    Math.max(Math.abs(lonCell - minLonCell), Math.abs(maxLonCell - lonCell)));
+        }
+
+        void forEachCell(double minLat, double minLon, double maxLat, double maxLon,
+                         Consumer<Collection<GeoPoint>> action) {
+            int fromLat = Math.max(cellIndex(minLat), minLatCell);
+            int toLat = Math.min(cellIndex(maxLat), maxLatCell);
+            int fromLon = Math.max(cellIndex(minLon), minLonCell);
+            int toLon = Math.min(cellIndex(maxLon), maxLonCell);
+            if (fromLat > toLat || fromLon > toLon) {
+                return;
+            }
+
+            long cellsInBox = (long) (toLat - fromLat + 1) * (toLon - fromLon + 1);
+            if (cellsInBox > cells.size()) {
+                // Large box over a sparse grid: scanning occupied cells is cheaper than probing every cell
+                cells.forEach((key, cell) -> {
+                    int latCell = (int) (key >> 32);
+                    int lonCell = (int) (long) key;
+                    if (latCell >= fromLat && latCell <= toLat && lonCell >= fromLon && lonCell <= toLon) {
+                        action.accept(cell.values());
+                    }
+                });
+                return;
+            }
+
+            for (int latCell = fromLat; latCell <= toLat; latCell++) {
+                for (int lonCell = fromLon; lonCell <= toLon; lonCell++) {
+                    Map<Long, GeoPoint> cell = cells.get(key(latCell, lonCell));
+                    if (cell != null) {
+                        action.accept(cell.values());
+                    }
+                }
+            }
+        }
+
+        /**
+         * Every occupied cell at Chebyshev distance ring or more from the center cell, by scanning occupied cells
+         */
+        void forEachCellFromRing(int centerLat, int centerLon, int ring, Consumer<Collection<GeoPoint>> action) {
+            cells.forEach((key, cell) -> {
+                int latCell = (int) (key >> 32);
+                int lonCell = (int) (long) key;
+                if (Math.max(Math.abs(latCell - centerLat), Math.abs(lonCell - centerLon)) >= ring) {
+                    action.accept(cell.values());
+                }
+            });
+        }
+
+        void forEachCellInRing(int centerLat, int centerLon, int ring,
+                               Consumer<Collection<GeoPoint>> action) {
+            if (ring == 0) {
+                Map<Long, GeoPoint> cell = cells.get(key(centerLat, centerLon));
+                if (cell != null) {
+                    action.accept(cell.values());
+                }
+                return;
+            }
+            for (int lat = centerLat - ring; lat <= centerLat + ring; lat++) {
+                boolean edgeRow = lat == centerLat - ring || lat == centerLat + ring;
+                int step = edgeRow ? 1 : 2 * ring;
+                for (int lon = centerLon - ring; lon <= centerLon + ring; lon += step) {
+                    Map<Long, GeoPoint> cell = cells.get(key(lat, lon));
+                    if (cell != null) {
+                        action.accept(cell.values());
+                    }
+                }
+            }
+        }
+    }
+}
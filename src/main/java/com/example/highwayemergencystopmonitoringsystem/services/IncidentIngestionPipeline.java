@@ -0,0 +1,306 @@
+package com.example.highwayemergencystopmonitoringsystem.services;
+
+import com.example.highwayemergencystopmonitoringsystem.configs.IngestionConfig;
+import com.example.highwayemergencystopmonitoringsystem.configs.WorkerThreads;
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentRequest;
+import com.example.highwayemergencystopmonitoringsystem.dtos.IngestionStatus;
+import com.example.highwayemergencystopmonitoringsystem.events.IncidentChangedEvent;
+import com.example.highwayemergencystopmonitoringsystem.services.ImageStorageService.StoredImage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Asynchronous intake for camera reports.
+ * submit() only validates the report and moves its images to a staging directory, then returns a tracking id;
+ * the work runs in three stages, each with its own worker pool: PERSIST (deduplicate and insert the incident row),
+ * STORE (move images into the upload directory and insert their rows) and BROADCAST (publish the change).
+ * At most queue-capacity reports are in flight across all stages; beyond that submit() throws
+ * RejectedExecutionException so callers can back off. Accepted reports live only in memory: staged files left
+ * over from a previous run are deleted on startup.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IncidentIngestionPipeline {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final IngestionConfig config;
+    private final IncidentService incidentService;
+    private final IncidentDeduplicator incidentDeduplicator;
+    private final WorkerThreads workerThreads;
+
+    private final Map<String, IngestionStatus> tracking = new ConcurrentHashMap<>();
+    private final Map<Stage, ThreadPoolExecutor> pools = new EnumMap<>(Stage.class);
+    private final Map<Stage, QuantileSketch> stageLatency = new EnumMap<>(Stage.class);
+    private final QuantileSketch endToEndLatency = new QuantileSketch();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private Semaphore slots;
+    private Path stagingDir;
+
+    public enum Stage {
+        PERSIST, STORE, BROADCAST
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        slots = new Semaphore(config.getQueueCapacity());
+        stagingDir = Paths.get(config.getStagingDir());
+        if (Files.isDirectory(stagingDir)) {
+            try (Stream<Path> leftovers = Files.list(stagingDir)) {
+                for (Path leftover : leftovers.toList()) {
+                    Files.deleteIfExists(leftover);
+                }
+            }
+        }
+        pools.put(Stage.PERSIST, newPool("ingest-persist-", config.getPersistWorkers()));
+        pools.put(Stage.STORE, newPool("ingest-store-", config.getStoreWorkers()));
+        pools.put(Stage.BROADCAST, newPool("ingest-broadcast-", config.getBroadcastWorkers()));
+        log.info("Ingestion pipeline started with {} threads", workerThreads.isVirtual() ? "virtual" : "platform");
+        for (Stage stage : Stage.values()) {
+            stageLatency.put(stage, new QuantileSketch());
+        }
+    }
+
+    /**
+     * Drain the stages in order, so work handed from one stage to the next is not rejected
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        for (Stage stage : Stage.values()) {
+            ThreadPoolExecutor pool = pools.get(stage);
+            pool.shutdown();
+            if (!pool.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Ingestion stage {} did not drain, {} reports dropped", stage, pool.shutdownNow().size());
+            }
+        }
+    }
+
+    /**
+     * Accept a report for asynchronous ingestion.
+     * Throws IllegalArgumentException for an invalid report or image, RejectedExecutionException when full.
+     */
+    public IngestionStatus submit(IncidentRequest request, List<MultipartFile> imageFiles) throws IOException {
+        if (!slots.tryAcquire()) {
+            rejected.increment();
+            throw new RejectedExecutionException("Ingestion queue is full (" + config.getQueueCapacity() + ")");
+        }
+        Job job;
+        try {
+            incidentService.validateRequest(request);
+            List<StoredImage> stagedImages = incidentService.stageImages(imageFiles, stagingDir);
+            job = new Job(UUID.randomUUID().toString(), request, stagedImages, System.nanoTime(), LocalDateTime.now());
+        } catch (IOException | RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+        accepted.increment();
+        IngestionStatus status = update(job, IngestionStatus.State.QUEUED);
+        enqueue(Stage.PERSIST, job, this::persist);
+        return status;
+    }
+
+    public IngestionStatus getStatus(String trackingId) {
+        return tracking.get(trackingId);
+    }
+
+    /**
+     * Queue depth, throughput counters and per-stage latency (queue wait included) in milliseconds
+     */
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("capacity", config.getQueueCapacity());
+        metrics.put("inFlight", config.getQueueCapacity() - slots.availablePermits());
+        metrics.put("accepted", accepted.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("completed", completed.sum());
+        metrics.put("failed", failed.sum());
+        Map<String, Object> stages = new LinkedHashMap<>();
+        for (Stage stage : Stage.values()) {
+            ThreadPoolExecutor pool = pools.get(stage);
+            Map<String, Object> stageMetrics = new LinkedHashMap<>();
+            stageMetrics.put("workers", pool.getMaximumPoolSize());
+            stageMetrics.put("active", pool.getActiveCount());
+            stageMetrics.put("queued", pool.getQueue().size());
+            stageMetrics.put("latencyMs", summarize(stageLatency.get(stage)));
+            stages.put(stage.name().toLowerCase(), stageMetrics);
+        }
+        metrics.put("stages", stages);
+        metrics.put("endToEndMs", summarize(endToEndLatency));
+        return metrics;
+    }
+
+    /**
+     * Forget finished reports after the retention period
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void evictFinished() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(config.getTrackingRetentionMinutes());
+        tracking.values().removeIf(status -> (status.getState() == IngestionStatus.State.COMPLETED
+                || status.getState() == IngestionStatus.State.FAILED) && status.getUpdatedAt().isBefore(cutoff));
+    }
+
+    // ==================== Stages ====================
+
+    private void persist(Job job) throws IOException {
+        IncidentDeduplicator.Result result = incidentDeduplicator.ingest(job.request,
+                () -> incidentService.persistIncident(job.request),
+                incidentService::getIncidentById);
+        job.incidentId = result.incident().getId();
+        job.duplicate = result.duplicate();
+        update(job, IngestionStatus.State.PERSISTED);
+        if (!job.stagedImages.isEmpty()) {
+            enqueue(Stage.STORE, job, this::store);
+        } else if (!job.duplicate) {
+            enqueue(Stage.BROADCAST, job, this::broadcast);
+        } else {
+            finish(job, null); // merged without images: nothing changed
+        }
+    }
+
+    private void store(Job job) throws IOException {
+        try {
+            incidentService.attachStagedImages(job.incidentId, job.stagedImages);
+        } catch (IOException | RuntimeException e) {
+            if (job.duplicate) {
+                throw e;
+            }
+            // The incident row exists: still announce it, and report the lost images
+            log.error("Storing images of report {} for incident {} failed", job.trackingId, job.incidentId, e);
+            job.error = "Images not stored: " + e.getMessage();
+            deleteStagedImages(job);
+        }
+        update(job, IngestionStatus.State.STORED);
+        enqueue(Stage.BROADCAST, job, this::broadcast);
+    }
+
+    private void broadcast(Job job) {
+        incidentService.publishIngested(job.incidentId,
+                job.duplicate ? IncidentChangedEvent.Type.IMAGE_ADDED : IncidentChangedEvent.Type.CREATED);
+        finish(job, job.error);
+    }
+
+    // ==================== Helper Methods ====================
+
+    @FunctionalInterface
+    private interface StageTask {
+        void run(Job job) throws IOException;
+    }
+
+    private void enqueue(Stage stage, Job job, StageTask task) {
+        long enqueuedAt = System.nanoTime();
+        try {
+            pools.get(stage).execute(() -> {
+                try {
+                    task.run(job);
+                } catch (Exception e) {
+                    log.error("Ingestion stage {} failed for report {}", stage, job.trackingId, e);
+                    deleteStagedImages(job);
+                    finish(job, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+                } finally {
+                    stageLatency.get(stage).add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - enqueuedAt));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Only while shutting down: the semaphore keeps the pools' queues bounded otherwise
+            deleteStagedImages(job);
+            finish(job, "Shutting down");
+        }
+    }
+
+    private void finish(Job job, String error) {
+        job.error = error;
+        update(job, error == null ? IngestionStatus.State.COMPLETED : IngestionStatus.State.FAILED);
+        (error == null ? completed : failed).increment();
+        endToEndLatency.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - job.acceptedNanos));
+        slots.release();
+    }
+
+    private IngestionStatus update(Job job, IngestionStatus.State state) {
+        IngestionStatus status = IngestionStatus.builder()
+                .trackingId(job.trackingId)
+                .state(state)
+                .incidentId(job.incidentId)
+                .duplicate(job.duplicate)
+                .error(job.error)
+                .acceptedAt(job.acceptedAt)
+                .updatedAt(LocalDateTime.now())
+                .build();
+        tracking.put(job.trackingId, status);
+        return status;
+    }
+
+    private void deleteStagedImages(Job job) {
+        for (StoredImage stagedImage : job.stagedImages) {
+            try {
+                Files.deleteIfExists(stagedImage.path());
+            } catch (IOException e) {
+                log.warn("Could not delete staged image {}", stagedImage.path(), e);
+            }
+        }
+    }
+
+    private ThreadPoolExecutor newPool(String namePrefix, int workers) {
+        return new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                workerThreads.factory(namePrefix));
+    }
+
+    private static Map<String, Object> summarize(QuantileSketch sketch) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", sketch.getCount());
+        summary.put("p50", sketch.quantile(0.50));
+        summary.put("p95", sketch.quantile(0.95));
+        summary.put("p99", sketch.quantile(0.99));
+        return summary;
+    }
+
+    /**
+     * One accepted report; handed from stage to stage, so fields are written by one thread at a time
+     */
+    private static final class Job {
+        private final String trackingId;
+        private final IncidentRequest request;
+        private final List<StoredImage> stagedImages;
+        private final long acceptedNanos;
+        private final LocalDateTime acceptedAt;
+        private Long incidentId;
+        private boolean duplicate;
+        private String error;
+
+        private Job(String trackingId, IncidentRequest request, List<StoredImage> stagedImages, long acceptedNanos, LocalDateTime acceptedAt) {
+            this.trackingId = trackingId;
+            this.request = request;
+            this.stagedImages = stagedImages;
+            this.acceptedNanos = acceptedNanos;
+            this.acceptedAt = acceptedAt;
+        }
+    }
+}
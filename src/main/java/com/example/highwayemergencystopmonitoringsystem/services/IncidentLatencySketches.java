@@ -0,0 +1,223 @@
+package com.example.highwayemergencystopmonitoringsystem.services;
+
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentResponse;
+import com.example.highwayemergencystopmonitoringsystem.entities.LatencySketch;
+import com.example.highwayemergencystopmonitoringsystem.events.IncidentChangedEvent;
+import com.example.highwayemergencystopmonitoringsystem.repositories.IncidentRepository;
+import com.example.highwayemergencystopmonitoringsystem.repositories.LatencySketchRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Daily quantile sketches of incident latencies (detection -> confirmation, detection -> resolution),
+ * keyed by detection day and highway segment. Updated from IncidentChangedEvent after commit and
+ * flushed to latency_sketches every minute; any date range is answered by merging its daily sketches.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IncidentLatencySketches {
+
+    public static final long NO_SEGMENT = 0L;
+    private static final int BACKFILL_BATCH_SIZE = 10_000;
+
+    private final IncidentRepository incidentRepository;
+    private final LatencySketchRepository latencySketchRepository;
+
+    private final Map<LatencySketch.Metric, ConcurrentSkipListMap<LocalDate, Map<Long, QuantileSketch>>> daily =
+            new EnumMap<>(LatencySketch.Metric.class);
+    private final Map<LatencySketch.Metric, QuantileSketch> allTime = new EnumMap<>(LatencySketch.Metric.class);
+    private final Set<SketchKey> dirty = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock flushLock = new ReentrantLock(); // flush and rebuild never overlap
+
+    private record SketchKey(LocalDate day, Long segmentId, LatencySketch.Metric metric) {
+    }
+
+    @PostConstruct
+    public void load() {
+        for (LatencySketch.Metric metric : LatencySketch.Metric.values()) {
+            daily.put(metric, new ConcurrentSkipListMap<>());
+            allTime.put(metric, new QuantileSketch());
+        }
+
+        if (latencySketchRepository.count() == 0) {
+            backfill();
+            flush();
+            return;
+        }
+        for (LatencySketch row : latencySketchRepository.findAll()) {
+            QuantileSketch sketch = QuantileSketch.fromBytes(row.getSketch());
+            daily.get(row.getMetric())
+                    .computeIfAbsent(row.getDay(), day -> new ConcurrentHashMap<>())
+                    .put(row.getSegmentId(), sketch);
+            allTime.get(row.getMetric()).merge(sketch);
+        }
+        log.info("Loaded latency sketches: {} resolutions, {} confirmations",
+                allTime.get(LatencySketch.Metric.RESOLUTION).getCount(),
+                allTime.get(LatencySketch.Metric.CONFIRMATION).getCount());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIncidentChanged(IncidentChangedEvent event) {
+        IncidentResponse incident = event.getIncident();
+        Long segmentId = incident.getSegmentId() != null ? incident.getSegmentId() : NO_SEGMENT;
+        if (event.getType() == IncidentChangedEvent.Type.CONFIRMED) {
+            record(LatencySketch.Metric.CONFIRMATION, segmentId, incident.getDetectionTime(), incident.getConfirmationTime());
+        } else if (event.getType() == IncidentChangedEvent.Type.RESOLVED) {
+            record(LatencySketch.Metric.RESOLUTION, segmentId, incident.getDetectionTime(), incident.getResolutionTime());
+        }
+    }
+
+    /**
+     * Latency quantiles in minutes for incidents detected in [from, to] (inclusive days).
+     * segmentId null merges all segments.
+     */
+    public Map<String, Object> percentiles(LatencySketch.Metric metric, LocalDate from, LocalDate to, Long segmentId) {
+        QuantileSketch merged = new QuantileSketch();
+        for (Map<Long, QuantileSketch> segments : daily.get(metric).subMap(from, true, to, true).values()) {
+            if (segmentId == null) {
+                segments.values().forEach(merged::merge);
+            } else {
+                QuantileSketch sketch = segments.get(segmentId);
+                if (sketch != null) {
+                    merged.merge(sketch);
+                }
+            }
+        }
+        return summarize(merged);
+    }
+
+    /**
+     * All-time latency quantiles in minutes
+     */
+    public Map<String, Object> percentiles(LatencySketch.Metric metric) {
+        return summarize(allTime.get(metric));
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void flush() {
+        flushLock.lock();
+        try {
+            int flushed = 0;
+            for (SketchKey key : List.copyOf(dirty)) {
+                dirty.remove(key);
+                Map<Long, QuantileSketch> segments = daily.get(key.metric()).get(key.day());
+                QuantileSketch sketch = segments != null ? segments.get(key.segmentId()) : null;
+                if (sketch == null) {
+                    continue;
+                }
+                LatencySketch row = latencySketchRepository
+                        .findByDayAndSegmentIdAndMetric(key.day(), key.segmentId(), key.metric())
+                        .orElseGet(() -> LatencySketch.builder()
+                                .day(key.day())
+                                .segmentId(key.segmentId())
+                                .metric(key.metric())
+                                .build());
+                row.setSketch(sketch.toBytes());
+                row.setUpdatedAt(LocalDateTime.now());
+                try {
+                    latencySketchRepository.save(row);
+                } catch (RuntimeException e) {
+                    dirty.add(key); // retried by the next flush
+                    throw e;
+                }
+                flushed++;
+            }
+            if (flushed > 0) {
+                log.debug("Flushed {} latency sketches", flushed);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Drop all sketches and recompute them from the incidents table (e.g. after segments were backfilled).
+     * A latency recorded while the rebuild reads the table may be counted twice.
+     */
+    public void rebuild() {
+        flushLock.lock();
+        try {
+            for (LatencySketch.Metric metric : LatencySketch.Metric.values()) {
+                daily.get(metric).clear();
+                allTime.get(metric).clear();
+            }
+            dirty.clear();
+            latencySketchRepository.deleteAllInBatch();
+            backfill();
+            flush();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private void backfill() {
+        long started = System.currentTimeMillis();
+        long afterId = 0;
+        List<Object[]> batch;
+        do {
+            batch = incidentRepository.findLifecycleTimesAfterId(afterId, PageRequest.of(0, BACKFILL_BATCH_SIZE));
+            for (Object[] row : batch) {
+                afterId = (Long) row[0];
+                LocalDateTime detectionTime = (LocalDateTime) row[1];
+                Long segmentId = row[4] != null ? (Long) row[4] : NO_SEGMENT;
+                record(LatencySketch.Metric.CONFIRMATION, segmentId, detectionTime, (LocalDateTime) row[2]);
+                record(LatencySketch.Metric.RESOLUTION, segmentId, detectionTime, (LocalDateTime) row[3]);
+            }
+        } while (batch.size() == BACKFILL_BATCH_SIZE);
+        log.info("Backfilled latency sketches in {} ms", System.currentTimeMillis() - started);
+    }
+
+    private void record(LatencySketch.Metric metric, Long segmentId, LocalDateTime start, LocalDateTime end) {
+        if (start == null || end == null) {
+            return;
+        }
+        long seconds = Math.max(0, Duration.between(start, end).getSeconds());
+        LocalDate day = start.toLocalDate();
+        daily.get(metric)
+                .computeIfAbsent(day, d -> new ConcurrentHashMap<>())
+                .computeIfAbsent(segmentId, s -> new QuantileSketch())
+                .add(seconds);
+        allTime.get(metric).add(seconds);
+        dirty.add(new SketchKey(day, segmentId, metric));
+    }
+
+    private static Map<String, Object> summarize(QuantileSketch sketch) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", sketch.getCount());
+        result.put("p50", toMinutes(sketch.quantile(0.50)));
+        result.put("p90", toMinutes(sketch.quantile(0.90)));
+        result.put("p95", toMinutes(sketch.quantile(0.95)));
+        result.put("p99", toMinutes(sketch.quantile(0.99)));
+        return result;
+    }
+
+    private static Double toMinutes(Double seconds) {
+        return seconds == null ? null : seconds / 60.0;
+    }
+}
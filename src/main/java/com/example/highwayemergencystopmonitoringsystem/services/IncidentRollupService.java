@@ -0,0 +1,163 @@
+package com.example.highwayemergencystopmonitoringsystem.services;
+
+import com.example.highwayemergencystopmonitoringsystem.entities.IncidentRollup;
+import com.example.highwayemergencystopmonitoringsystem.entities.RollupWatermark;
+import com.example.highwayemergencystopmonitoringsystem.repositories.IncidentRepository;
+import com.example.highwayemergencystopmonitoringsystem.repositories.IncidentRollupRepository;
+import com.example.highwayemergencystopmonitoringsystem.repositories.RollupWatermarkRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Maintains incident_rollups (hourly and daily counts per segment and status).
+ * A scheduled job re-aggregates every detection day touched by a status change since the watermark;
+ * each day is deleted and re-inserted in its own transaction, so refreshes and backfills are idempotent.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IncidentRollupService {
+
+    private static final String WATERMARK_NAME = "incident_rollups";
+    // Transactions that stamped last_modified_time before the watermark may commit after it was read
+    private static final long WATERMARK_OVERLAP_MINUTES = 5;
+
+    private final IncidentRepository incidentRepository;
+    private final IncidentRollupRepository incidentRollupRepository;
+    private final RollupWatermarkRepository rollupWatermarkRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile boolean ready = false; // a watermark exists, i.e. the full backfill has completed once
+
+    /**
+     * Roll up days changed since the watermark. On first run (no watermark) all history is backfilled.
+     */
+    @Scheduled(initialDelay = 30_000, fixedDelay = 60_000)
+    public void refresh() {
+        if (!refreshLock.tryLock()) {
+            return;
+        }
+        try {
+            LocalDateTime startedAt = LocalDateTime.now();
+            RollupWatermark watermark = rollupWatermarkRepository.findById(WATERMARK_NAME).orElse(null);
+            if (watermark != null) {
+                ready = true; // backfilled by an earlier run or process
+            }
+
+            TreeSet<LocalDate> days = new TreeSet<>();
+            if (watermark == null) {
+                // First run: backfill all history (rows written before last_modified_time existed have it null)
+                incidentRepository.findFirstByOrderByDetectionTimeAsc().ifPresent(oldest -> {
+                    for (LocalDate day = oldest.getDetectionTime().toLocalDate();
+                         !day.isAfter(startedAt.toLocalDate()); day = day.plusDays(1)) {
+                        days.add(day);
+                    }
+                });
+            } else {
+                LocalDateTime since = watermark.getWatermark().minusMinutes(WATERMARK_OVERLAP_MINUTES);
+                days.addAll(toDays(incidentRepository.findDetectionDaysModifiedSince(since)));
+            }
+
+            for (LocalDate day : days) {
+                rebuildDay(day);
+            }
+            rollupWatermarkRepository.save(new RollupWatermark(WATERMARK_NAME, startedAt));
+            ready = true;
+            if (!days.isEmpty()) {
+                log.info("Incident rollups refreshed for {} day(s)", days.size());
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Recompute rollups for every day in [from, to] (inclusive)
+     * Throws IllegalStateException while a refresh or another backfill is running, since both rebuild days
+     */
+    public int backfill(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("to must not be before from");
+        }
+        if (!refreshLock.tryLock()) {
+            throw new IllegalStateException("Incident rollups are being refreshed");
+        }
+        try {
+            int days = 0;
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                rebuildDay(day);
+                days++;
+            }
+            log.info("Incident rollups backfilled from {} to {} ({} days)", from, to, days);
+            return days;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Rebuild hourly then daily rollups of one day in a single transaction; callers hold refreshLock
+     */
+    private void rebuildDay(LocalDate day) {
+        LocalDateTime dayStart = day.atStartOfDay();
+        LocalDateTime dayEnd = day.plusDays(1).atStartOfDay();
+        transactionTemplate.executeWithoutResult(status -> {
+            incidentRollupRepository.deleteBuckets(dayStart, dayEnd);
+            incidentRollupRepository.insertHourly(dayStart, dayEnd);
+            incidentRollupRepository.insertDaily(dayStart, dayEnd);
+        });
+    }
+
+    /**
+     * Status totals over daily rollups for days in [from, to)
+     * Keys: status name -> count, plus "total", "resolutionSecondsSum", "resolvedCount"
+     */
+    public Map<String, Long> sumDaily(LocalDate from, LocalDate to) {
+        Map<String, Long> totals = new HashMap<>();
+        long total = 0;
+        long resolutionSeconds = 0;
+        long resolved = 0;
+        for (Object[] row : incidentRollupRepository.sumDailyByStatus(from.atStartOfDay(), to.atStartOfDay())) {
+            long count = ((Number) row[1]).longValue();
+            totals.put(row[0].toString(), count);
+            total += count;
+            resolutionSeconds += ((Number) row[2]).longValue();
+            resolved += ((Number) row[3]).longValue();
+        }
+        totals.put("total", total);
+        totals.put("resolutionSecondsSum", resolutionSeconds);
+        totals.put("resolvedCount", resolved);
+        return totals;
+    }
+
+    /**
+     * True once a refresh has found or written the watermark (the full backfill has completed).
+     * Read from memory: polled before every conditional dashboard response.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<IncidentRollup> findRollups(IncidentRollup.Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        return incidentRollupRepository
+                .findByGranularityAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(granularity, from, to);
+    }
+
+    private static List<LocalDate> toDays(List<Object> values) {
+        return values.stream()
+                .map(value -> value instanceof java.sql.Date date ? date.toLocalDate() : (LocalDate) value)
+                .toList();
+    }
+}
@@ -0,0 +1,377 @@
+package com.example.highwayemergencystopmonitoringsystem.services;
+
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentResponse;
+import com.example.highwayemergencystopmonitoringsystem.entities.Incident;
+import com.example.highwayemergencystopmonitoringsystem.events.IncidentChangedEvent;
+import com.example.highwayemergencystopmonitoringsystem.repositories.IncidentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over incident descriptions.
+ * Text is folded to lowercase ASCII (Vietnamese diacritics stripped, đ -> d) and split into words;
+ * every query word matches indexed words starting with it, and all query words must match.
+ * A query word is expanded to every indexed word it prefixes, up to MAX_PREFIX_EXPANSIONS; beyond that only
+ * the most frequent are searched and the result is flagged as truncated.
+ * Hits are ranked with BM25 (prefix-only matches weigh less than exact words), newest first on ties. A search holds
+ * the read lock only to copy the postings it needs; merging, intersecting and ranking run outside it.
+ * Loaded in id-ordered batches at startup and kept current from IncidentChangedEvent after commit.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IncidentSearchIndex {
+
+    private static final int LOAD_BATCH_SIZE = 10_000;
+    private static final int MAX_PREFIX_EXPANSIONS = 4096; // indexed words searched per query word
+    private static final double PREFIX_MATCH_WEIGHT = 0.5;
+    private static final double BM25_K1 = 1.2;
+    private static final double BM25_B = 0.75;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WORD_SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final IncidentRepository incidentRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> postingsByTerm = new TreeMap<>();    // guarded by lock
+    private final Map<Long, Document> documentsById = new ConcurrentHashMap<>(); // written under lock, search reads it without
+    private long totalLength = 0;                                                // guarded by lock
+    private volatile boolean ready = false;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Reload all descriptions from the database in batches of LOAD_BATCH_SIZE
+     */
+    public int rebuild() {
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            postingsByTerm.clear();
+            documentsById.clear();
+            totalLength = 0;
+
+            long afterId = 0;
+            List<Object[]> batch;
+            do {
+                batch = incidentRepository.findSearchableAfterId(afterId, PageRequest.of(0, LOAD_BATCH_SIZE));
+                for (Object[] row : batch) {
+                    afterId = (Long) row[0];
+                    index(afterId, (String) row[1], (Incident.IncidentStatus) row[2], (LocalDateTime) row[3]);
+                }
+            } while (batch.size() == LOAD_BATCH_SIZE);
+
+            ready = true;
+            log.info("Search index loaded {} incidents ({} terms) in {} ms",
+                    documentsById.size(), postingsByTerm.size(), System.currentTimeMillis() - started);
+            return documentsById.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIncidentChanged(IncidentChangedEvent event) {
+        IncidentResponse incident = event.getIncident();
+        lock.writeLock().lock();
+        try {
+            Document document = documentsById.get(incident.getId());
+            if (document == null) {
+                index(incident.getId(), incident.getDescription(), incident.getStatus(), incident.getDetectionTime());
+            } else {
+                // Descriptions do not change after creation; only the status filter needs updating
+                documentsById.put(incident.getId(),
+                        new Document(incident.getStatus(), document.detectionTime(), document.length()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of matching incidents, best match first; truncated when some query word prefixed more indexed words
+     * than were searched, so incidents containing only the rarer ones may be missing
+     */
+    public record SearchResult(List<Long> ids, boolean truncated) {
+    }
+
+    /**
+     * Incidents whose description matches every word of the query, best match first.
+     * status, from and to (detection time, [from, to)) are optional filters.
+     */
+    public SearchResult search(String query, Incident.IncidentStatus status, LocalDateTime from, LocalDateTime to, int limit) {
+        if (!ready) {
+            throw new IllegalStateException("Search index is still loading");
+        }
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (words.isEmpty()) {
+            throw new IllegalArgumentException("Query must contain at least one letter or digit");
+        }
+
+        // Min-heap on rank keeps the best `limit` hits seen so far
+        Comparator<Hit> bestFirst = Comparator.comparingDouble(Hit::score)
+                .thenComparing(Hit::detectionTime)
+                .thenComparing(Hit::id)
+                .reversed();
+        PriorityQueue<Hit> best = new PriorityQueue<>(bestFirst.reversed());
+        boolean truncated = false;
+
+        // Under the read lock only copy out the postings of each word's expansions, so index updates
+        // (applied after commit on request threads) never wait behind merging and scoring
+        List<List<Expansion>> expansions = new ArrayList<>();
+        double averageLength;
+        lock.readLock().lock();
+        try {
+            for (String word : words) {
+                List<Expansion> matches = new ArrayList<>();
+                truncated |= expand(word, matches);
+                if (matches.isEmpty()) {
+                    return new SearchResult(List.of(), false);
+                }
+                expansions.add(matches);
+            }
+            averageLength = documentsById.isEmpty() ? 1 : (double) totalLength / documentsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Each word's expansions merged once into one id-sorted list, then intersected from the rarest word up
+        expansions.sort(Comparator.comparingLong(IncidentSearchIndex::postingCount));
+        WordMatches matches = merge(expansions.get(0), averageLength);
+        for (int w = 1; w < expansions.size() && matches.size() > 0; w++) {
+            matches = intersect(matches, merge(expansions.get(w), averageLength));
+        }
+
+        for (int i = 0; i < matches.size(); i++) {
+            long id = matches.ids()[i];
+            Document document = documentsById.get(id);
+            if (document == null
+                    || (status != null && document.status() != status)
+                    || (from != null && document.detectionTime().isBefore(from))
+                    || (to != null && !document.detectionTime().isBefore(to))) {
+                continue;
+            }
+            best.offer(new Hit(id, matches.scores()[i], document.detectionTime()));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        List<Hit> result = new ArrayList<>(best);
+        result.sort(bestFirst);
+        return new SearchResult(result.stream().map(Hit::id).toList(), truncated);
+    }
+
+    /**
+     * Lowercase ASCII words: diacritics removed (đ -> d), split on anything that is not a letter or digit
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = text.replace('đ', 'd').replace('Đ', 'D');
+        folded = COMBINING_MARKS.matcher(Normalizer.normalize(folded, Normalizer.Form.NFD)).replaceAll("");
+        return Arrays.stream(WORD_SEPARATORS.split(folded.toLowerCase(Locale.ROOT)))
+                .filter(word -> !word.isEmpty())
+                .toList();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private void index(Long id, String description, Incident.IncidentStatus status, LocalDateTime detectionTime) {
+        List<String> words = tokenize(description);
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String word : words) {
+            frequencies.merge(word, 1, Integer::sum);
+        }
+        frequencies.forEach((word, frequency) ->
+                postingsByTerm.computeIfAbsent(word, w -> new Postings()).add(id, frequency));
+        documentsById.put(id, new Document(status, detectionTime, words.size()));
+        totalLength += words.size();
+    }
+
+    /**
+     * Add the exact word (full weight) and every longer word it prefixes to matches, keeping only the
+     * MAX_PREFIX_EXPANSIONS most frequent longer words when there are more; returns true when some were left out
+     */
+    private boolean expand(String word, List<Expansion> matches) {
+        Postings exact = postingsByTerm.get(word);
+        if (exact != null) {
+            matches.add(expansion(exact, 1.0));
+        }
+        List<Postings> longer = new ArrayList<>(
+                postingsByTerm.subMap(word, false, word + Character.MAX_VALUE, false).values());
+        boolean truncated = longer.size() > MAX_PREFIX_EXPANSIONS;
+        if (truncated) {
+            longer.sort(Comparator.comparingInt((Postings postings) -> postings.size).reversed());
+            longer = longer.subList(0, MAX_PREFIX_EXPANSIONS);
+        }
+        for (Postings postings : longer) {
+            matches.add(expansion(postings, PREFIX_MATCH_WEIGHT));
+        }
+        return truncated;
+    }
+
+    /**
+     * A copy of postings with its idf, safe to read after the lock is released; callers hold the read lock
+     */
+    private Expansion expansion(Postings postings, double weight) {
+        return new Expansion(Arrays.copyOf(postings.ids, postings.size), Arrays.copyOf(postings.frequencies, postings.size),
+                idf(postings.size), weight);
+    }
+
+    /**
+     * Union of the expansions of one query word: every id once, in id order, with its BM25 scores summed
+     */
+    private WordMatches merge(List<Expansion> expansions, double averageLength) {
+        int total = (int) postingCount(expansions);
+        long[] ids = new long[total];
+        double[] scores = new double[total];
+        int size = 0;
+        // k-way merge: a cursor per expansion, ordered by the id it points at
+        PriorityQueue<int[]> cursors = new PriorityQueue<>(
+                Comparator.comparingLong((int[] cursor) -> expansions.get(cursor[0]).ids()[cursor[1]]));
+        for (int e = 0; e < expansions.size(); e++) {
+            cursors.add(new int[]{e, 0});
+        }
+        while (!cursors.isEmpty()) {
+            int[] cursor = cursors.poll();
+            Expansion expansion = expansions.get(cursor[0]);
+            long id = expansion.ids()[cursor[1]];
+            Document document = documentsById.get(id);
+            if (document != null) {
+                double score = expansion.weight()
+                        * bm25(expansion.idf(), expansion.frequencies()[cursor[1]], document, averageLength);
+                if (size > 0 && ids[size - 1] == id) {
+                    scores[size - 1] += score;
+                } else {
+                    ids[size] = id;
+                    scores[size] = score;
+                    size++;
+                }
+            }
+            if (++cursor[1] < expansion.ids().length) {
+                cursors.add(cursor);
+            }
+        }
+        return new WordMatches(ids, scores, size);
+    }
+
+    /**
+     * Ids in both lists with their scores added, by a linear merge of the two id-sorted lists
+     */
+    private static WordMatches intersect(WordMatches left, WordMatches right) {
+        int capacity = Math.min(left.size(), right.size());
+        long[] ids = new long[capacity];
+        double[] scores = new double[capacity];
+        int size = 0;
+        int l = 0;
+        int r = 0;
+        while (l < left.size() && r < right.size()) {
+            long leftId = left.ids()[l];
+            long rightId = right.ids()[r];
+            if (leftId < rightId) {
+                l++;
+            } else if (leftId > rightId) {
+                r++;
+            } else {
+                ids[size] = leftId;
+                scores[size] = left.scores()[l] + right.scores()[r];
+                size++;
+                l++;
+                r++;
+            }
+        }
+        return new WordMatches(ids, scores, size);
+    }
+
+    private static long postingCount(List<Expansion> expansions) {
+        return expansions.stream().mapToLong(expansion -> expansion.ids().length).sum();
+    }
+
+    private double idf(int documentFrequency) {
+        int documents = documentsById.size();
+        return Math.log(1 + (documents - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private static double bm25(double idf, int frequency, Document document, double averageLength) {
+        double norm = BM25_K1 * (1 - BM25_B + BM25_B * document.length() / averageLength);
+        return idf * frequency * (BM25_K1 + 1) / (frequency + norm);
+    }
+
+    private record Document(Incident.IncidentStatus status, LocalDateTime detectionTime, int length) {
+    }
+
+    private record Expansion(long[] ids, int[] frequencies, double idf, double weight) {
+    }
+
+    /**
+     * The first size entries of ids (ascending) and their scores
+     */
+    private record WordMatches(long[] ids, double[] scores, int size) {
+    }
+
+    private record Hit(long id, double score, LocalDateTime detectionTime) {
+    }
+
+    /**
+     * Incident ids containing one word, kept sorted for binary search, with in-description frequencies. Not thread-safe.
+     */
+    private static class Postings {
+        private long[] ids = new long[4];
+        private int[] frequencies = new int[4];
+        private int size = 0;
+
+        void add(long id, int frequency) {
+            int position = indexOf(id);
+            if (position >= 0) {
+                frequencies[position] = frequency;
+                return;
+            }
+            position = -position - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            // Ids almost always arrive in increasing order, so this is normally an append
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            System.arraycopy(frequencies, position, frequencies, position + 1, size - position);
+            ids[position] = id;
+            frequencies[position] = frequency;
+            size++;
+        }
+
+        int indexOf(long id) {
+            return Arrays.binarySearch(ids, 0, size, id);
+        }
+    }
+}
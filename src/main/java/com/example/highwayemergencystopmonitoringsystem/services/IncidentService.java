@@ -1,28 +1,44 @@
 package com.example.highwayemergencystopmonitoringsystem.services;
 
+import com.example.highwayemergencystopmonitoringsystem.dtos.BulkIncidentItem;
+import com.example.highwayemergencystopmonitoringsystem.dtos.BulkIncidentResult;
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentCursor;
 import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentImageResponse;
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentPage;
 import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentRequest;
 import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentResponse;
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentSummary;
 import com.example.highwayemergencystopmonitoringsystem.entities.Incident;
 import com.example.highwayemergencystopmonitoringsystem.entities.IncidentImage;
+import com.example.highwayemergencystopmonitoringsystem.events.IncidentChangedEvent;
 import com.example.highwayemergencystopmonitoringsystem.mappers.IncidentImageMapper;
 import com.example.highwayemergencystopmonitoringsystem.mappers.IncidentMapper;
 import com.example.highwayemergencystopmonitoringsystem.repositories.IncidentImageRepository;
 import com.example.highwayemergencystopmonitoringsystem.repositories.IncidentRepository;
-import com.example.highwayemergencystopmonitoringsystem.websocket.IncidentWebSocketHandler;
+import com.example.highwayemergencystopmonitoringsystem.services.ImageStorageService.StoredImage;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
 
 @Service
 @RequiredArgsConstructor
@@ -34,11 +50,16 @@ public class IncidentService {
     private final IncidentImageRepository incidentImageRepository;
     private final IncidentMapper incidentMapper;
     private final IncidentImageMapper incidentImageMapper;
-    private final IncidentWebSocketHandler webSocketHandler;
+    private final ApplicationEventPublisher eventPublisher;
+    private final IncidentChangeLog incidentChangeLog;
+    private final HighwaySegmentIndex highwaySegmentIndex;
+    private final Validator validator;
+    private final ImageStorageService imageStorageService;
 
-    private static final String UPLOAD_DIR = "uploads/incidents";
-    private static final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5MB
-    private static final String[] ALLOWED_MIME_TYPES = {"image/jpeg", "image/png", "image/gif", "image/webp"};
+    private static final int IMAGE_BATCH_SIZE = 1000; // max incident ids per IN (...) image query
+    public static final int MAX_BULK_SIZE = 500;
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
 
     /**
      * UC-01: Create incident with initial images (supports multiple files)
@@ -50,26 +71,16 @@ public class IncidentService {
 
         // Validate all images first
         for (MultipartFile imageFile : imageFiles) {
-            validateImage(imageFile);
+            imageStorageService.validate(imageFile);
         }
 
         // Create incident
-        Incident incident = Incident.builder()
-                .latitude(request.getLatitude())
-                .longitude(request.getLongitude())
-                .description(request.getDescription())
-                .status(Incident.IncidentStatus.DETECTED)
-                .detectionTime(LocalDateTime.now())
-                .build();
-
-        incident = incidentRepository.save(incident);
+        LocalDateTime now = LocalDateTime.now();
+        Incident incident = incidentRepository.save(newIncident(request, now));
 
         // Save all images
-        List<IncidentImage> savedImages = new java.util.ArrayList<>();
-        for (MultipartFile imageFile : imageFiles) {
-            IncidentImage incidentImage = saveImage(incident, imageFile);
-            savedImages.add(incidentImage);
-        }
+        List<IncidentImage> savedImages = incidentImageRepository.saveAll(
+                newImages(incident, storeImages(imageFiles), now));
 
         // Return response with all images
         IncidentResponse response = incidentMapper.toResponse(incident);
@@ -79,12 +90,95 @@ public class IncidentService {
 
         log.info("Incident created with id: {}, saved {} images", incident.getId(), savedImages.size());
         
-        // Broadcast incident created event via WebSocket
-        webSocketHandler.broadcastIncidentCreated(response);
+        IncidentChangedEvent event = new IncidentChangedEvent(IncidentChangedEvent.Type.CREATED, response, null);
+        eventPublisher.publishEvent(event);
+        // Sequenced and broadcast via WebSocket after commit
+        incidentChangeLog.record(event);
         
         return response;
     }
 
+    /**
+     * Create many incidents in one transaction.
+     * Each item is validated like a single create (IncidentRequest constraints, image checks); invalid items are
+     * reported and skipped, the valid ones are persisted together so Hibernate sends the inserts in JDBC batches
+     * (hibernate.jdbc.batch_size) instead of one round trip per row. Results are in request order.
+     * imageFiles: multipart parts by name, referenced from BulkIncidentItem.images
+     */
+    public List<BulkIncidentResult> createIncidents(List<BulkIncidentItem> items, Map<String, MultipartFile> imageFiles) throws IOException {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("At least one incident is required");
+        }
+        if (items.size() > MAX_BULK_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BULK_SIZE + " incidents per request");
+        }
+        log.info("Bulk creating {} incidents with {} image parts", items.size(), imageFiles.size());
+
+        List<BulkIncidentResult> results = new ArrayList<>();
+        List<Incident> incidents = new ArrayList<>();
+        List<List<StoredImage>> incidentImages = new ArrayList<>(); // parallel to incidents
+        LocalDateTime now = LocalDateTime.now();
+        // Blobs already published for earlier items stay if this throws and the transaction rolls back: they may be
+        // shared with committed incidents (see ImageStorageService.publish)
+        for (int index = 0; index < items.size(); index++) {
+            BulkIncidentItem item = items.get(index);
+            BulkIncidentResult result = BulkIncidentResult.builder()
+                    .index(index)
+                    .clientRef(item.getClientRef())
+                    .build();
+            results.add(result);
+            try {
+                IncidentRequest request = IncidentRequest.builder()
+                        .latitude(item.getLatitude())
+                        .longitude(item.getLongitude())
+                        .description(item.getDescription())
+                        .build();
+                // Stored here so content that fails the type sniff only invalidates its own item
+                List<StoredImage> stored = storeImages(resolveBulkImages(request, item.getImages(), imageFiles));
+                incidents.add(newIncident(request, now));
+                incidentImages.add(stored);
+            } catch (IllegalArgumentException e) {
+                result.setStatus(BulkIncidentResult.Status.INVALID);
+                result.setError(e.getMessage());
+            }
+        }
+
+        // Ids come from the pooled sequence, so persisting assigns them without an insert per row;
+        // the inserts are flushed in batches at commit
+        incidentRepository.saveAll(incidents);
+        List<IncidentImage> images = new ArrayList<>();
+        for (int i = 0; i < incidents.size(); i++) {
+            images.addAll(newImages(incidents.get(i), incidentImages.get(i), now));
+        }
+        incidentImageRepository.saveAll(images);
+
+        Map<Long, List<IncidentImageResponse>> imagesByIncident = new HashMap<>();
+        for (IncidentImage image : images) {
+            imagesByIncident.computeIfAbsent(image.getIncident().getId(), id -> new ArrayList<>())
+                    .add(incidentImageMapper.toResponse(image));
+        }
+        int created = 0;
+        for (BulkIncidentResult result : results) {
+            if (result.getStatus() == BulkIncidentResult.Status.INVALID) {
+                continue;
+            }
+            Incident incident = incidents.get(created++);
+            result.setStatus(BulkIncidentResult.Status.CREATED);
+            result.setIncidentId(incident.getId());
+
+            IncidentResponse response = incidentMapper.toResponse(incident);
+            response.setImages(imagesByIncident.getOrDefault(incident.getId(), List.of()));
+            IncidentChangedEvent event = new IncidentChangedEvent(IncidentChangedEvent.Type.CREATED, response, null);
+            eventPublisher.publishEvent(event);
+            // Sequenced and broadcast via WebSocket after commit
+            incidentChangeLog.record(event);
+        }
+
+        log.info("Bulk create: {} incidents created, {} invalid, {} images saved",
+                created, items.size() - created, images.size());
+        return results;
+    }
+
     /**
      * UC-01: Confirm incident (operator reviews image)
      * Status: DETECTED -> CONFIRMED
@@ -93,12 +187,13 @@ public class IncidentService {
     public IncidentResponse confirmIncident(Long incidentId) {
         log.info("Confirming incident: {}", incidentId);
 
-        Incident incident = incidentRepository.findById(incidentId)
+        // Locked so a concurrent confirm/resolve waits and then sees this transition
+        Incident incident = incidentRepository.findByIdForUpdate(incidentId)
                 .orElseThrow(() -> new IllegalArgumentException("Incident not found: " + incidentId));
 
         // Validate current status
         if (incident.getStatus() != Incident.IncidentStatus.DETECTED) {
-            throw new IllegalArgumentException("Incident must be in DETECTED status to confirm");
+            throw new IllegalStateException("Incident must be in DETECTED status to confirm");
         }
 
         // Validate has images
@@ -107,14 +202,19 @@ public class IncidentService {
             throw new IllegalArgumentException("Cannot confirm incident without images");
         }
 
+        Incident.IncidentStatus previousStatus = incident.getStatus();
         incident.setStatus(Incident.IncidentStatus.CONFIRMED);
+        incident.setConfirmationTime(LocalDateTime.now());
+        incident.setLastModifiedTime(incident.getConfirmationTime());
         incident = incidentRepository.save(incident);
 
         log.info("Incident {} confirmed", incidentId);
         IncidentResponse response = buildResponse(incident);
         
-        // Broadcast incident confirmed event via WebSocket
-        webSocketHandler.broadcastIncidentConfirmed(response);
+        IncidentChangedEvent event = new IncidentChangedEvent(IncidentChangedEvent.Type.CONFIRMED, response, previousStatus);
+        eventPublisher.publishEvent(event);
+        // Sequenced and broadcast via WebSocket after commit
+        incidentChangeLog.record(event);
         
         return response;
     }
@@ -127,23 +227,28 @@ public class IncidentService {
     public IncidentResponse resolveIncident(Long incidentId) {
         log.info("Resolving incident: {}", incidentId);
 
-        Incident incident = incidentRepository.findById(incidentId)
+        // Locked so a concurrent confirm/resolve waits and then sees this transition
+        Incident incident = incidentRepository.findByIdForUpdate(incidentId)
                 .orElseThrow(() -> new IllegalArgumentException("Incident not found: " + incidentId));
 
         // Validate current status (allow CONFIRMED or DETECTED for flexibility)
         if (incident.getStatus() == Incident.IncidentStatus.RESOLVED) {
-            throw new IllegalArgumentException("Incident is already resolved");
+            throw new IllegalStateException("Incident is already resolved");
         }
 
+        Incident.IncidentStatus previousStatus = incident.getStatus();
         incident.setStatus(Incident.IncidentStatus.RESOLVED);
         incident.setResolutionTime(LocalDateTime.now());
+        incident.setLastModifiedTime(incident.getResolutionTime());
         incident = incidentRepository.save(incident);
 
         log.info("Incident {} resolved at {}", incidentId, incident.getResolutionTime());
         IncidentResponse response = buildResponse(incident);
         
-        // Broadcast incident resolved event via WebSocket
-        webSocketHandler.broadcastIncidentResolved(response);
+        IncidentChangedEvent event = new IncidentChangedEvent(IncidentChangedEvent.Type.RESOLVED, response, previousStatus);
+        eventPublisher.publishEvent(event);
+        // Sequenced and broadcast via WebSocket after commit
+        incidentChangeLog.record(event);
         
         return response;
     }
@@ -161,9 +266,20 @@ public class IncidentService {
      * List all incidents with given status
      */
     public List<IncidentResponse> listIncidentsByStatus(Incident.IncidentStatus status) {
-        return incidentRepository.findByStatusOrderByDetectionTimeDesc(status)
-                .stream()
-                .map(this::buildResponse)
+        return buildResponses(incidentRepository.findByStatusOrderByDetectionTimeDesc(status));
+    }
+
+    /**
+     * Incidents by id in the given order (ids that no longer exist are skipped)
+     */
+    public List<IncidentResponse> getIncidentsByIds(List<Long> incidentIds) {
+        Map<Long, IncidentResponse> byId = new HashMap<>();
+        for (IncidentResponse response : buildResponses(incidentRepository.findAllById(incidentIds))) {
+            byId.put(response.getId(), response);
+        }
+        return incidentIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
                 .toList();
     }
 
@@ -172,29 +288,40 @@ public class IncidentService {
      * Incident status != RESOLVED
      */
     public IncidentResponse addImage(Long incidentId, MultipartFile imageFile) throws IOException {
-        log.info("Adding image to incident: {}", incidentId);
+        return addImages(incidentId, List.of(imageFile));
+    }
 
-        Incident incident = incidentRepository.findById(incidentId)
+    /**
+     * Add several images to an existing incident with a single IMAGE_ADDED event
+     * (also used to merge duplicate reports into an active incident)
+     */
+    public IncidentResponse addImages(Long incidentId, List<MultipartFile> imageFiles) throws IOException {
+        log.info("Adding {} image(s) to incident: {}", imageFiles.size(), incidentId);
+
+        // Locked so a concurrent resolve waits, or is seen here: images never land on a resolved incident and the
+        // IMAGE_ADDED event never carries a status older than the one already published
+        Incident incident = incidentRepository.findByIdForUpdate(incidentId)
                 .orElseThrow(() -> new IllegalArgumentException("Incident not found: " + incidentId));
 
         if (incident.getStatus() == Incident.IncidentStatus.RESOLVED) {
             throw new IllegalArgumentException("Cannot add images to resolved incident");
         }
 
-        // Validate image
-        validateImage(imageFile);
-
-        // Save image
-        saveImage(incident, imageFile);
+        // Validate images
+        for (MultipartFile imageFile : imageFiles) {
+            imageStorageService.validate(imageFile);
+        }
 
-        // Reload incident with updated images
-        incident = incidentRepository.findById(incidentId).orElseThrow();
+        // Save images; the response is built from the locked incident, its images are read back by query
+        incidentImageRepository.saveAll(newImages(incident, storeImages(imageFiles), LocalDateTime.now()));
 
-        log.info("Image added to incident {}", incidentId);
+        log.info("{} image(s) added to incident {}", imageFiles.size(), incidentId);
         IncidentResponse response = buildResponse(incident);
         
-        // Broadcast image added event via WebSocket
-        webSocketHandler.broadcastImageAdded(incidentId, response);
+        IncidentChangedEvent event = new IncidentChangedEvent(IncidentChangedEvent.Type.IMAGE_ADDED, response, response.getStatus());
+        eventPublisher.publishEvent(event);
+        // Sequenced and broadcast via WebSocket after commit
+        incidentChangeLog.record(event);
         
         return response;
     }
@@ -203,57 +330,274 @@ public class IncidentService {
      * Get all incidents (recent first)
      */
     public List<IncidentResponse> listAllIncidents() {
-        return incidentRepository.findAll().stream()
+        return buildResponses(incidentRepository.findAll().stream()
                 .sorted((a, b) -> b.getDetectionTime().compareTo(a.getDetectionTime()))
-                .map(this::buildResponse)
-                .toList();
+                .toList());
     }
 
-    // ==================== Helper Methods ====================
+    /**
+     * Keyset-paginated listing (recent first) with optional status and detection time filters.
+     * Fetches one extra row to know whether a next page exists, so the cost depends on page size only.
+     */
+    @Transactional(readOnly = true)
+    public IncidentPage<IncidentResponse> listIncidentsPage(Incident.IncidentStatus status, LocalDateTime from,
+                                                            LocalDateTime to, IncidentCursor cursor, Integer size) {
+        int pageSize = resolvePageSize(size);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<Incident> rows = cursor == null
+                ? incidentRepository.findPage(status, from, to, limit)
+                : incidentRepository.findPageAfter(status, from, to, cursor.getDetectionTime(), cursor.getId(), limit);
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            Incident last = rows.get(pageSize - 1);
+            nextCursor = new IncidentCursor(last.getDetectionTime(), last.getId()).encode();
+        }
 
-    private IncidentImage saveImage(Incident incident, MultipartFile file) throws IOException {
-        // Remove spaces from original filename
-        String originalFilename = file.getOriginalFilename().replaceAll("\\s+", "_");
-        String filename = UUID.randomUUID() + "_" + originalFilename;
-        Path uploadPath = Paths.get(UPLOAD_DIR);
-        Files.createDirectories(uploadPath);
+        return IncidentPage.<IncidentResponse>builder()
+                .items(buildResponses(rows))
+                .nextCursor(nextCursor)
+                .build();
+    }
 
-        Path filePath = uploadPath.resolve(filename);
-        Files.write(filePath, file.getBytes());
+    /**
+     * Same listing as listIncidentsPage but as IncidentSummary rows read through a constructor query.
+     * Only the requested fields are kept (id is always present); the thumbnail query runs only when asked for.
+     */
+    @Transactional(readOnly = true)
+    public IncidentPage<IncidentSummary> listIncidentSummariesPage(Incident.IncidentStatus status, LocalDateTime from,
+                                                                   LocalDateTime to, IncidentCursor cursor, Integer size,
+                                                                   Set<String> fields) {
+        int pageSize = resolvePageSize(size);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<IncidentSummary> rows = cursor == null
+                ? incidentRepository.findSummaryPage(status, from, to, limit)
+                : incidentRepository.findSummaryPageAfter(status, from, to, cursor.getDetectionTime(), cursor.getId(), limit);
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            IncidentSummary last = rows.get(pageSize - 1);
+            nextCursor = new IncidentCursor(last.getDetectionTime(), last.getId()).encode();
+        }
 
-        // Normalize path to use forward slashes for consistency
-        String normalizedPath = filePath.toString().replace("\\", "/");
+        if (fields.contains("thumbnail")) {
+            attachThumbnails(rows);
+        }
+        rows.forEach(summary -> applyFieldset(summary, fields));
 
-        IncidentImage incidentImage = IncidentImage.builder()
-                .incident(incident)
-                .filePath(normalizedPath)
-                .capturedAt(LocalDateTime.now())
+        return IncidentPage.<IncidentSummary>builder()
+                .items(rows)
+                .nextCursor(nextCursor)
                 .build();
+    }
+
+    /**
+     * Fill IncidentSummary.thumbnail with the first image of each incident (one query per IMAGE_BATCH_SIZE rows)
+     */
+    @Transactional(readOnly = true)
+    public void attachThumbnails(List<IncidentSummary> summaries) {
+        Map<Long, String> thumbnails = new HashMap<>();
+        List<Long> ids = summaries.stream().map(IncidentSummary::getId).toList();
+        for (int start = 0; start < ids.size(); start += IMAGE_BATCH_SIZE) {
+            List<Long> chunk = ids.subList(start, Math.min(start + IMAGE_BATCH_SIZE, ids.size()));
+            for (Object[] row : incidentImageRepository.findFirstImagePaths(chunk)) {
+                thumbnails.put((Long) row[0], (String) row[1]);
+            }
+        }
+        summaries.forEach(summary -> {
+            summary.setThumbnail(thumbnails.get(summary.getId()));
+            summary.setThumbnailUrl(ThumbnailService.url(summary.getThumbnail(), ThumbnailService.SMALL));
+        });
+    }
+
+    // ==================== Staged Ingestion ====================
+    // Used by IncidentIngestionPipeline: intake runs without a transaction, each stage in its own short one
+
+    /**
+     * Check the IncidentRequest constraints; throws IllegalArgumentException with the first violation
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void validateRequest(IncidentRequest request) {
+        Set<ConstraintViolation<IncidentRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.iterator().next().getMessage());
+        }
+    }
+
+    /**
+     * Validate the images and stream them out of the request into stagingDir, so they outlive the request.
+     * Nothing is left behind when any image is rejected.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<StoredImage> stageImages(List<MultipartFile> imageFiles, Path stagingDir) throws IOException {
+        for (MultipartFile imageFile : imageFiles) {
+            imageStorageService.validate(imageFile);
+        }
+        return writeImages(imageFiles, stagingDir);
+    }
+
+    /**
+     * Persist stage: insert the incident row only; images and the CREATED event follow in later stages
+     */
+    public IncidentResponse persistIncident(IncidentRequest request) {
+        Incident incident = incidentRepository.save(newIncident(request, LocalDateTime.now()));
+        log.info("Incident {} persisted at location ({}, {})", incident.getId(), request.getLatitude(), request.getLongitude());
+        return incidentMapper.toResponse(incident);
+    }
+
+    /**
+     * Store stage: publish staged files to the image store and insert their rows
+     */
+    public void attachStagedImages(Long incidentId, List<StoredImage> stagedImages) throws IOException {
+        // Locked like addImages, so a resolve committing meanwhile is either waited for or rejects the images
+        Incident incident = incidentRepository.findByIdForUpdate(incidentId)
+                .orElseThrow(() -> new IllegalArgumentException("Incident not found: " + incidentId));
+        if (incident.getStatus() == Incident.IncidentStatus.RESOLVED) {
+            throw new IllegalArgumentException("Cannot add images to resolved incident");
+        }
+
+        List<StoredImage> stored = new ArrayList<>();
+        for (StoredImage stagedImage : stagedImages) {
+            stored.add(imageStorageService.publish(stagedImage));
+        }
+        List<IncidentImage> images = incidentImageRepository.saveAll(newImages(incident, stored, LocalDateTime.now()));
+        log.info("{} staged image(s) stored for incident {}", images.size(), incidentId);
+    }
+
+    /**
+     * Broadcast stage: publish the change (CREATED, or IMAGE_ADDED for a merged report) with the current state
+     */
+    public IncidentResponse publishIngested(Long incidentId, IncidentChangedEvent.Type type) {
+        // Locked so the published status is the latest committed one, not a snapshot older than a concurrent resolve
+        Incident incident = incidentRepository.findByIdForUpdate(incidentId)
+                .orElseThrow(() -> new IllegalArgumentException("Incident not found: " + incidentId));
+        IncidentResponse response = buildResponse(incident);
+
+        IncidentChangedEvent event = new IncidentChangedEvent(type, response,
+                type == IncidentChangedEvent.Type.CREATED ? null : response.getStatus());
+        eventPublisher.publishEvent(event);
+        // Sequenced and broadcast via WebSocket after commit
+        incidentChangeLog.record(event);
 
-        return incidentImageRepository.save(incidentImage);
+        return response;
     }
 
-    private void validateImage(MultipartFile file) {
-        if (file == null || file.isEmpty()) {
-            throw new IllegalArgumentException("Image file cannot be empty");
+    /**
+     * Publish an IMAGES_UPDATED change for each incident whose image rows were rewritten in the current transaction,
+     * so ETags move on and the in-memory views replace their image paths after commit.
+     * Incidents are locked in id order, so the published status cannot be older than a concurrent resolve.
+     */
+    public void publishImagesUpdated(Collection<Long> incidentIds) {
+        List<Incident> incidents = new ArrayList<>();
+        for (Long incidentId : new TreeSet<>(incidentIds)) {
+            incidentRepository.findByIdForUpdate(incidentId).ifPresent(incidents::add);
+        }
+        for (IncidentResponse response : buildResponses(incidents)) {
+            IncidentChangedEvent event = new IncidentChangedEvent(IncidentChangedEvent.Type.IMAGES_UPDATED, response,
+                    response.getStatus());
+            eventPublisher.publishEvent(event);
+            // Sequenced and broadcast via WebSocket after commit
+            incidentChangeLog.record(event);
+        }
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Stream the files into the content-addressable store (one file per distinct content)
+     */
+    private List<StoredImage> storeImages(List<MultipartFile> files) throws IOException {
+        List<StoredImage> written = writeImages(files, Paths.get(ImageStorageService.UPLOAD_DIR));
+        List<StoredImage> stored = new ArrayList<>();
+        try {
+            for (StoredImage image : written) {
+                stored.add(imageStorageService.publish(image));
+            }
+        } catch (IOException | RuntimeException e) {
+            written.forEach(imageStorageService::delete);
+            throw e;
         }
+        return stored;
+    }
 
-        if (file.getSize() > MAX_FILE_SIZE) {
-            throw new IllegalArgumentException("Image file size exceeds 5MB limit");
+    /**
+     * Stream the files into directory; if any fails, the ones already written are deleted
+     */
+    private List<StoredImage> writeImages(List<MultipartFile> files, Path directory) throws IOException {
+        List<StoredImage> stored = new ArrayList<>();
+        try {
+            for (MultipartFile file : files) {
+                stored.add(imageStorageService.write(file, directory));
+            }
+        } catch (IOException | RuntimeException e) {
+            stored.forEach(imageStorageService::delete);
+            throw e;
         }
+        return stored;
+    }
 
-        String mimeType = file.getContentType();
-        boolean isValidMimeType = false;
-        for (String allowed : ALLOWED_MIME_TYPES) {
-            if (allowed.equals(mimeType)) {
-                isValidMimeType = true;
-                break;
+    private List<IncidentImage> newImages(Incident incident, List<StoredImage> stored, LocalDateTime capturedAt) {
+        return stored.stream()
+                .map(image -> IncidentImage.builder()
+                        .incident(incident)
+                        .filePath(image.filePath())
+                        .contentType(image.contentType())
+                        .contentSha256(image.sha256())
+                        .sizeBytes(image.size())
+                        .capturedAt(capturedAt)
+                        .build())
+                .toList();
+    }
+
+    private Incident newIncident(IncidentRequest request, LocalDateTime now) {
+        return Incident.builder()
+                .latitude(request.getLatitude())
+                .longitude(request.getLongitude())
+                .description(request.getDescription())
+                .segmentId(highwaySegmentIndex.findSegmentId(request.getLatitude(), request.getLongitude()))
+                .status(Incident.IncidentStatus.DETECTED)
+                .detectionTime(now)
+                .lastModifiedTime(now)
+                .build();
+    }
+
+    /**
+     * Validate a bulk item like a single create and resolve its image parts
+     */
+    private List<MultipartFile> resolveBulkImages(IncidentRequest request, List<String> parts, Map<String, MultipartFile> imageFiles) {
+        validateRequest(request);
+
+        List<MultipartFile> files = new ArrayList<>();
+        if (parts != null) {
+            for (String part : parts) {
+                MultipartFile file = imageFiles.get(part);
+                if (file == null) {
+                    throw new IllegalArgumentException("Missing image part: " + part);
+                }
+                imageStorageService.validate(file);
+                files.add(file);
             }
         }
+        return files;
+    }
 
-        if (!isValidMimeType) {
-            throw new IllegalArgumentException("Only JPEG, PNG, GIF, and WebP images are allowed");
+    private int resolvePageSize(Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
         }
+        return pageSize;
+    }
+
+    private void applyFieldset(IncidentSummary summary, Set<String> fields) {
+        if (!fields.contains("latitude")) summary.setLatitude(null);
+        if (!fields.contains("longitude")) summary.setLongitude(null);
+        if (!fields.contains("status")) summary.setStatus(null);
+        if (!fields.contains("detectionTime")) summary.setDetectionTime(null);
+        if (!fields.contains("thumbnail")) summary.setThumbnail(null);
+        if (!fields.contains("thumbnail")) summary.setThumbnailUrl(null);
     }
 
     private IncidentResponse buildResponse(Incident incident) {
@@ -267,10 +611,45 @@ public class IncidentService {
         return response;
     }
 
+    /**
+     * Build responses for a list of incidents, loading images with one IN query per
+     * IMAGE_BATCH_SIZE incidents instead of one query per incident. Order is preserved.
+     */
+    private List<IncidentResponse> buildResponses(List<Incident> incidents) {
+        if (incidents.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> incidentIds = incidents.stream().map(Incident::getId).toList();
+        Map<Long, List<IncidentImageResponse>> imagesByIncident = new HashMap<>();
+        for (int start = 0; start < incidentIds.size(); start += IMAGE_BATCH_SIZE) {
+            List<Long> chunk = incidentIds.subList(start, Math.min(start + IMAGE_BATCH_SIZE, incidentIds.size()));
+            for (IncidentImage image : incidentImageRepository.findByIncidentIdIn(chunk)) {
+                imagesByIncident.computeIfAbsent(image.getIncident().getId(), id -> new ArrayList<>())
+                        .add(incidentImageMapper.toResponse(image));
+            }
+        }
+
+        return incidents.stream()
+                .map(incident -> {
+                    IncidentResponse response = incidentMapper.toResponse(incident);
+                    response.setImages(imagesByIncident.getOrDefault(incident.getId(), List.of()));
+                    return response;
+                })
+                .toList();
+    }
+
     /**
      * Public method for external services (e.g., ReportService) to build response
      */
     public IncidentResponse buildResponseFromIncident(Incident incident) {
         return buildResponse(incident);
     }
+
+    /**
+     * Public batched variant for external services (e.g., ReportService, dashboard)
+     */
+    public List<IncidentResponse> buildResponsesFromIncidents(List<Incident> incidents) {
+        return buildResponses(incidents);
+    }
 }
@@ -0,0 +1,182 @@
+package com.example.highwayemergencystopmonitoringsystem.services;
+
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentResponse;
+import com.example.highwayemergencystopmonitoringsystem.entities.Incident;
+import com.example.highwayemergencystopmonitoringsystem.events.IncidentChangedEvent;
+import com.example.highwayemergencystopmonitoringsystem.repositories.IncidentRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Incrementally maintained incident counters: incidents per status and resolution time totals.
+ * Seeded from one GROUP BY query before the web server accepts requests, then updated from
+ * IncidentChangedEvent after commit, so report endpoints no longer scan the incidents table.
+ * A periodic reconcile compares the counters with the same query and corrects drift left by a lost or
+ * double-applied event. Drift is only corrected once two runs in a row measured the same difference, so
+ * events still in flight between a commit and its listener are not mistaken for it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IncidentStatistics {
+
+    private final IncidentRepository incidentRepository;
+
+    private final Map<Incident.IncidentStatus, LongAdder> statusCounts = new EnumMap<>(Incident.IncidentStatus.class);
+    private final LongAdder resolutionSecondsSum = new LongAdder();
+    private final LongAdder resolvedWithTimeCount = new LongAdder();
+    private final LongAccumulator minResolutionSeconds = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator maxResolutionSeconds = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    private long[] lastDrift; // only touched by the scheduled reconcile
+
+    {
+        for (Incident.IncidentStatus status : Incident.IncidentStatus.values()) {
+            statusCounts.put(status, new LongAdder());
+        }
+    }
+
+    @PostConstruct
+    public void seed() {
+        Totals totals = Totals.of(incidentRepository.summarizeByStatus());
+        for (Incident.IncidentStatus status : Incident.IncidentStatus.values()) {
+            statusCounts.get(status).add(totals.counts()[status.ordinal()]);
+        }
+        resolutionSecondsSum.add(totals.resolutionSecondsSum());
+        resolvedWithTimeCount.add(totals.resolvedWithTimeCount());
+        minResolutionSeconds.accumulate(totals.minResolutionSeconds());
+        maxResolutionSeconds.accumulate(totals.maxResolutionSeconds());
+        log.info("Incident statistics seeded: {}", getStatusCounts());
+    }
+
+    /**
+     * Compare the counters with the database and correct a difference seen by two consecutive runs
+     */
+    @Scheduled(initialDelay = 300_000, fixedDelay = 300_000)
+    public void reconcile() {
+        Totals totals = Totals.of(incidentRepository.summarizeByStatus());
+        Incident.IncidentStatus[] statuses = Incident.IncidentStatus.values();
+        long[] drift = new long[statuses.length + 2];
+        for (Incident.IncidentStatus status : statuses) {
+            drift[status.ordinal()] = totals.counts()[status.ordinal()] - statusCounts.get(status).sum();
+        }
+        drift[statuses.length] = totals.resolutionSecondsSum() - resolutionSecondsSum.sum();
+        drift[statuses.length + 1] = totals.resolvedWithTimeCount() - resolvedWithTimeCount.sum();
+
+        boolean drifted = Arrays.stream(drift).anyMatch(delta -> delta != 0);
+        if (drifted && Arrays.equals(drift, lastDrift)) {
+            for (Incident.IncidentStatus status : statuses) {
+                statusCounts.get(status).add(drift[status.ordinal()]);
+            }
+            resolutionSecondsSum.add(drift[statuses.length]);
+            resolvedWithTimeCount.add(drift[statuses.length + 1]);
+            // Extremes only ever move outwards from events, so take the database's
+            minResolutionSeconds.reset();
+            minResolutionSeconds.accumulate(totals.minResolutionSeconds());
+            maxResolutionSeconds.reset();
+            maxResolutionSeconds.accumulate(totals.maxResolutionSeconds());
+            log.warn("Incident statistics corrected by {}: now {}", Arrays.toString(drift), getStatusCounts());
+            lastDrift = null;
+            return;
+        }
+        lastDrift = drifted ? drift : null;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIncidentChanged(IncidentChangedEvent event) {
+        IncidentResponse incident = event.getIncident();
+        if (event.getPreviousStatus() == incident.getStatus()) {
+            return; // e.g. IMAGE_ADDED
+        }
+        if (event.getPreviousStatus() != null) {
+            statusCounts.get(event.getPreviousStatus()).decrement();
+        }
+        statusCounts.get(incident.getStatus()).increment();
+
+        if (incident.getStatus() == Incident.IncidentStatus.RESOLVED && incident.getResolutionTime() != null) {
+            long seconds = Duration.between(incident.getDetectionTime(), incident.getResolutionTime()).getSeconds();
+            resolutionSecondsSum.add(seconds);
+            resolvedWithTimeCount.increment();
+            minResolutionSeconds.accumulate(seconds);
+            maxResolutionSeconds.accumulate(seconds);
+        }
+    }
+
+    public long getCount(Incident.IncidentStatus status) {
+        return statusCounts.get(status).sum();
+    }
+
+    public long getTotalCount() {
+        long total = 0;
+        for (LongAdder count : statusCounts.values()) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    public Map<String, Long> getStatusCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        statusCounts.forEach((status, count) -> counts.put(status.name(), count.sum()));
+        return counts;
+    }
+
+    public long getResolvedWithTimeCount() {
+        return resolvedWithTimeCount.sum();
+    }
+
+    /**
+     * Average resolution time in minutes, or null when nothing has been resolved yet
+     */
+    public Double getAverageResolutionMinutes() {
+        long count = resolvedWithTimeCount.sum();
+        return count == 0 ? null : resolutionSecondsSum.sum() / 60.0 / count;
+    }
+
+    public Long getMinResolutionMinutes() {
+        long min = minResolutionSeconds.get();
+        return min == Long.MAX_VALUE ? null : min / 60;
+    }
+
+    public Long getMaxResolutionMinutes() {
+        long max = maxResolutionSeconds.get();
+        return max == Long.MIN_VALUE ? null : max / 60;
+    }
+
+    /**
+     * Database totals from summarizeByStatus; counts are indexed by status ordinal
+     */
+    private record Totals(long[] counts, long resolutionSecondsSum, long resolvedWithTimeCount,
+                          long minResolutionSeconds, long maxResolutionSeconds) {
+
+        static Totals of(List<Object[]> rows) {
+            long[] counts = new long[Incident.IncidentStatus.values().length];
+            long secondsSum = 0;
+            long withTime = 0;
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (Object[] row : rows) {
+                counts[Incident.IncidentStatus.valueOf((String) row[0]).ordinal()] = ((Number) row[1]).longValue();
+                secondsSum += ((Number) row[2]).longValue();
+                withTime += ((Number) row[3]).longValue();
+                if (row[4] != null) {
+                    min = Math.min(min, ((Number) row[4]).longValue());
+                    max = Math.max(max, ((Number) row[5]).longValue());
+                }
+            }
+            return new Totals(counts, secondsSum, withTime, min, max);
+        }
+    }
+}
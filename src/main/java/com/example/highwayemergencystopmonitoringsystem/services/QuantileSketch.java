@@ -0,0 +1,136 @@
+package com.example.highwayemergencystopmonitoringsystem.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mergeable quantile sketch for non-negative durations (DDSketch style).
+ * Values are counted in logarithmic buckets so every quantile estimate is within RELATIVE_ACCURACY
+ * of the true value, memory grows with the value range rather than the sample count, and two
+ * sketches merge by adding bucket counts. Safe for concurrent add/merge/read.
+ */
+public class QuantileSketch {
+
+    private static final double RELATIVE_ACCURACY = 0.01;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final byte FORMAT_VERSION = 1;
+
+    private final ConcurrentSkipListMap<Integer, LongAdder> buckets = new ConcurrentSkipListMap<>();
+    private final LongAdder zeroCount = new LongAdder();
+    private final LongAdder count = new LongAdder();
+
+    public void add(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Sketch values must be non-negative: " + value);
+        }
+        if (value == 0) {
+            zeroCount.increment();
+        } else {
+            buckets.computeIfAbsent(bucketIndex(value), index -> new LongAdder()).increment();
+        }
+        count.increment();
+    }
+
+    public void merge(QuantileSketch other) {
+        zeroCount.add(other.zeroCount.sum());
+        for (Map.Entry<Integer, LongAdder> bucket : other.buckets.entrySet()) {
+            buckets.computeIfAbsent(bucket.getKey(), index -> new LongAdder()).add(bucket.getValue().sum());
+        }
+        count.add(other.count.sum());
+    }
+
+    public void clear() {
+        buckets.clear();
+        zeroCount.reset();
+        count.reset();
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Estimated value at quantile q (0..1), or null for an empty sketch
+     */
+    public Double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1");
+        }
+        long total = count.sum();
+        if (total == 0) {
+            return null;
+        }
+
+        long rank = (long) Math.floor(q * (total - 1));
+        long seen = zeroCount.sum();
+        if (seen > rank) {
+            return 0.0;
+        }
+        Integer lastIndex = null;
+        for (Map.Entry<Integer, LongAdder> bucket : buckets.entrySet()) {
+            seen += bucket.getValue().sum();
+            lastIndex = bucket.getKey();
+            if (seen > rank) {
+                break;
+            }
+        }
+        return lastIndex == null ? 0.0 : bucketValue(lastIndex);
+    }
+
+    public byte[] toBytes() {
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+             DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(zeroCount.sum());
+            Map<Integer, LongAdder> snapshot = buckets.clone();
+            out.writeInt(snapshot.size());
+            for (Map.Entry<Integer, LongAdder> bucket : snapshot.entrySet()) {
+                out.writeInt(bucket.getKey());
+                out.writeLong(bucket.getValue().sum());
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static QuantileSketch fromBytes(byte[] data) {
+        QuantileSketch sketch = new QuantileSketch();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported sketch format: " + version);
+            }
+            long zeros = in.readLong();
+            sketch.zeroCount.add(zeros);
+            sketch.count.add(zeros);
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                int index = in.readInt();
+                long bucketCount = in.readLong();
+                sketch.buckets.computeIfAbsent(index, k -> new LongAdder()).add(bucketCount);
+                sketch.count.add(bucketCount);
+            }
+            return sketch;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int bucketIndex(long value) {
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+
+    private static double bucketValue(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+}
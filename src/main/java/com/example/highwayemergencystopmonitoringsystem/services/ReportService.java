@@ -1,18 +1,30 @@
 package com.example.highwayemergencystopmonitoringsystem.services;
 
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentAggregateBucket;
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentAggregateResponse;
 import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentResponse;
 import com.example.highwayemergencystopmonitoringsystem.entities.Incident;
+import com.example.highwayemergencystopmonitoringsystem.entities.IncidentRollup;
+import com.example.highwayemergencystopmonitoringsystem.entities.LatencySketch;
 import com.example.highwayemergencystopmonitoringsystem.repositories.IncidentRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 @Service
 @RequiredArgsConstructor
@@ -22,6 +34,16 @@ public class ReportService {
 
     private final IncidentRepository incidentRepository;
     private final IncidentService incidentService;
+    private final IncidentStatistics incidentStatistics;
+    private final IncidentLatencySketches incidentLatencySketches;
+    private final IncidentRollupService incidentRollupService;
+
+    private static final Map<String, Long> BUCKET_SECONDS = Map.of(
+            "HOUR", 3600L,
+            "DAY", 86400L,
+            "WEEK", 7 * 86400L);
+    private static final long MAX_BUCKETS = 24 * 400; // about a year of hourly buckets
+    private static final String[] RESOLUTION_RANGES = {"<15m", "15-30m", "30-60m", "1-2h", ">2h"};
 
     /**
      * Get incident statistics report
@@ -32,38 +54,24 @@ public class ReportService {
     public Map<String, Object> getIncidentReport() {
         log.info("Generating incident report");
 
-        List<Incident> allIncidents = incidentRepository.findAll();
-        List<Incident> resolvedIncidents = incidentRepository.findByStatus(Incident.IncidentStatus.RESOLVED);
-
         Map<String, Object> report = new HashMap<>();
 
         // Count by status
-        long detectedCount = allIncidents.stream()
-                .filter(i -> i.getStatus() == Incident.IncidentStatus.DETECTED)
-                .count();
-        long confirmedCount = allIncidents.stream()
-                .filter(i -> i.getStatus() == Incident.IncidentStatus.CONFIRMED)
-                .count();
-        long resolvedCount = resolvedIncidents.size();
-
-        report.put("totalIncidents", allIncidents.size());
-        report.put("detectedCount", detectedCount);
-        report.put("confirmedCount", confirmedCount);
-        report.put("resolvedCount", resolvedCount);
+        report.put("totalIncidents", incidentStatistics.getTotalCount());
+        report.put("detectedCount", incidentStatistics.getCount(Incident.IncidentStatus.DETECTED));
+        report.put("confirmedCount", incidentStatistics.getCount(Incident.IncidentStatus.CONFIRMED));
+        report.put("resolvedCount", incidentStatistics.getCount(Incident.IncidentStatus.RESOLVED));
 
         // Average resolution time
-        if (!resolvedIncidents.isEmpty()) {
-            double avgResolutionTimeMinutes = resolvedIncidents.stream()
-                    .mapToLong(i -> ChronoUnit.MINUTES.between(i.getDetectionTime(), i.getResolutionTime()))
-                    .average()
-                    .orElse(0);
+        Double avgResolutionTimeMinutes = incidentStatistics.getAverageResolutionMinutes();
+        if (avgResolutionTimeMinutes != null) {
             report.put("averageResolutionTimeMinutes", avgResolutionTimeMinutes);
         }
 
         // Latest incidents
-        List<IncidentResponse> latestIncidents = incidentService.listAllIncidents().stream()
-                .limit(10)
-                .toList();
+        List<IncidentResponse> latestIncidents = incidentService
+                .listIncidentsPage(null, null, null, null, 10)
+                .getItems();
         report.put("latestIncidents", latestIncidents);
 
         return report;
@@ -75,14 +83,10 @@ public class ReportService {
     public List<IncidentResponse> getResolvedIncidentsByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
         log.info("Getting resolved incidents between {} and {}", startDate, endDate);
 
-        List<Incident> incidents = incidentRepository.findByDetectionTimeAfter(startDate).stream()
-                .filter(i -> i.getStatus() == Incident.IncidentStatus.RESOLVED)
-                .filter(i -> i.getResolutionTime().isBefore(endDate))
-                .toList();
+        List<Incident> incidents = incidentRepository.findByStatusAndDetectionTimeAfterAndResolutionTimeBefore(
+                Incident.IncidentStatus.RESOLVED, startDate, endDate);
 
-        return incidents.stream()
-                .map(incidentService::buildResponseFromIncident)
-                .toList();
+        return incidentService.buildResponsesFromIncidents(incidents);
     }
 
     /**
@@ -91,34 +95,134 @@ public class ReportService {
     public Map<String, Object> getDetailedStatistics() {
         log.info("Generating detailed statistics");
 
-        List<Incident> allIncidents = incidentRepository.findAll();
-        List<Incident> resolvedIncidents = incidentRepository.findByStatus(Incident.IncidentStatus.RESOLVED);
-
         Map<String, Object> stats = new HashMap<>();
 
         // Status distribution
-        Map<String, Long> statusDistribution = new HashMap<>();
-        statusDistribution.put("DETECTED", allIncidents.stream().filter(i -> i.getStatus() == Incident.IncidentStatus.DETECTED).count());
-        statusDistribution.put("CONFIRMED", allIncidents.stream().filter(i -> i.getStatus() == Incident.IncidentStatus.CONFIRMED).count());
-        statusDistribution.put("RESOLVED", (long) resolvedIncidents.size());
-
-        stats.put("statusDistribution", statusDistribution);
+        stats.put("statusDistribution", incidentStatistics.getStatusCounts());
 
         // Resolution time percentiles
-        if (!resolvedIncidents.isEmpty()) {
-            List<Long> resolutionTimes = resolvedIncidents.stream()
-                    .map(i -> ChronoUnit.MINUTES.between(i.getDetectionTime(), i.getResolutionTime()))
-                    .sorted()
-                    .toList();
-
-            stats.put("minResolutionTime", resolutionTimes.get(0));
-            stats.put("maxResolutionTime", resolutionTimes.get(resolutionTimes.size() - 1));
-            stats.put("medianResolutionTime", resolutionTimes.get(resolutionTimes.size() / 2));
+        if (incidentStatistics.getResolvedWithTimeCount() > 0) {
+            Map<String, Object> resolution = incidentLatencySketches.percentiles(LatencySketch.Metric.RESOLUTION);
+            stats.put("minResolutionTime", incidentStatistics.getMinResolutionMinutes());
+            stats.put("maxResolutionTime", incidentStatistics.getMaxResolutionMinutes());
+            stats.put("medianResolutionTime", resolution.get("p50"));
+            stats.put("resolutionTimePercentiles", resolution);
         }
+        stats.put("confirmationTimePercentiles", incidentLatencySketches.percentiles(LatencySketch.Metric.CONFIRMATION));
 
         // Total incidents count
-        stats.put("totalIncidentsCount", allIncidents.size());
+        stats.put("totalIncidentsCount", incidentStatistics.getTotalCount());
 
         return stats;
     }
+
+    /**
+     * Time-bucketed incident counts per status and average resolution time, grouped in the database.
+     * from/to are inclusive calendar dates in the requested timezone. Buckets are fixed-width windows
+     * aligned to local midnight (Monday for WEEK) of the first day, so zones with DST shift by an hour
+     * after a transition. In the server timezone, days before today are summed from incident_rollups.
+     */
+    public IncidentAggregateResponse aggregateIncidents(String bucket, LocalDate from, LocalDate to, ZoneId zone) {
+        Long bucketSeconds = BUCKET_SECONDS.get(bucket.toUpperCase());
+        if (bucketSeconds == null) {
+            throw new IllegalArgumentException("Bucket must be one of " + BUCKET_SECONDS.keySet());
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("to must not be before from");
+        }
+
+        ZonedDateTime rangeStart = from.atStartOfDay(zone);
+        ZonedDateTime rangeEnd = to.plusDays(1).atStartOfDay(zone);
+        ZonedDateTime origin = "WEEK".equalsIgnoreCase(bucket)
+                ? from.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay(zone)
+                : rangeStart;
+        if (ChronoUnit.SECONDS.between(origin, rangeEnd) / bucketSeconds > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Range too large for " + bucket + " buckets");
+        }
+        log.info("Aggregating incidents by {} from {} to {} ({})", bucket, from, to, zone);
+
+        // Detection times are stored as server-local wall-clock time
+        ZoneId serverZone = ZoneId.systemDefault();
+        LocalDateTime fromLocal = rangeStart.withZoneSameInstant(serverZone).toLocalDateTime();
+        LocalDateTime toLocal = rangeEnd.withZoneSameInstant(serverZone).toLocalDateTime();
+        LocalDateTime originLocal = origin.withZoneSameInstant(serverZone).toLocalDateTime();
+
+        // Completed server-local days are read from rollups when bucket boundaries line up with them;
+        // the rest of the range (today, or everything for other zones) is grouped from incidents
+        List<Object[]> rows = new ArrayList<>();
+        LocalDateTime rawFrom = fromLocal;
+        if (zone.getRules().equals(serverZone.getRules()) && incidentRollupService.isReady()) {
+            LocalDateTime todayStart = LocalDate.now().atStartOfDay();
+            LocalDateTime rollupTo = toLocal.isBefore(todayStart) ? toLocal : todayStart;
+            if (fromLocal.isBefore(rollupTo)) {
+                IncidentRollup.Granularity granularity = "HOUR".equalsIgnoreCase(bucket)
+                        ? IncidentRollup.Granularity.HOUR : IncidentRollup.Granularity.DAY;
+                for (IncidentRollup rollup : incidentRollupService.findRollups(granularity, fromLocal, rollupTo)) {
+                    rows.add(new Object[]{
+                            ChronoUnit.SECONDS.between(originLocal, rollup.getBucketStart()) / bucketSeconds,
+                            rollup.getStatus().name(), rollup.getIncidentCount(),
+                            rollup.getResolutionSecondsSum(), rollup.getResolvedCount()});
+                }
+                rawFrom = rollupTo;
+            }
+        }
+        if (rawFrom.isBefore(toLocal)) {
+            rows.addAll(incidentRepository.aggregateByBucket(originLocal, bucketSeconds, rawFrom, toLocal));
+        }
+
+        Map<Long, IncidentAggregateBucket> buckets = new TreeMap<>();
+        Map<Long, Long> resolutionSeconds = new HashMap<>();
+        for (Object[] row : rows) {
+            long index = ((Number) row[0]).longValue();
+            long count = ((Number) row[2]).longValue();
+            IncidentAggregateBucket aggregate = buckets.computeIfAbsent(index, i -> IncidentAggregateBucket.builder()
+                    .start(origin.plusSeconds(i * bucketSeconds).toLocalDateTime())
+                    .statusCounts(new HashMap<>())
+                    .build());
+            aggregate.getStatusCounts().merge((String) row[1], count, Long::sum);
+            aggregate.setTotal(aggregate.getTotal() + count);
+            aggregate.setResolvedCount(aggregate.getResolvedCount() + ((Number) row[4]).longValue());
+            resolutionSeconds.merge(index, ((Number) row[3]).longValue(), Long::sum);
+        }
+        buckets.forEach((index, aggregate) -> {
+            if (aggregate.getResolvedCount() > 0) {
+                aggregate.setAverageResolutionMinutes(resolutionSeconds.get(index) / 60.0 / aggregate.getResolvedCount());
+            }
+        });
+
+        Map<String, Long> distribution = new LinkedHashMap<>();
+        for (String range : RESOLUTION_RANGES) {
+            distribution.put(range, 0L);
+        }
+        for (Object[] row : incidentRepository.resolutionDistribution(fromLocal, toLocal)) {
+            distribution.put(RESOLUTION_RANGES[((Number) row[0]).intValue()], ((Number) row[1]).longValue());
+        }
+
+        return IncidentAggregateResponse.builder()
+                .bucket(bucket.toUpperCase())
+                .timezone(zone.getId())
+                .from(from)
+                .to(to)
+                .buckets(new ArrayList<>(buckets.values()))
+                .resolutionDistribution(distribution)
+                .build();
+    }
+
+    /**
+     * Latency percentiles (minutes) for incidents detected between two dates, merged from daily sketches
+     */
+    public Map<String, Object> getLatencyPercentiles(String metric, LocalDate from, LocalDate to, Long segmentId) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("to must not be before from");
+        }
+        LatencySketch.Metric latencyMetric = LatencySketch.Metric.valueOf(metric.toUpperCase());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("metric", latencyMetric.name());
+        result.put("from", from);
+        result.put("to", to);
+        result.put("segmentId", segmentId);
+        result.putAll(incidentLatencySketches.percentiles(latencyMetric, from, to, segmentId));
+        return result;
+    }
 }
@@ -0,0 +1,143 @@
+package com.example.highwayemergencystopmonitoringsystem.services;
+
+import com.example.highwayemergencystopmonitoringsystem.configs.WorkerThreads;
+import com.example.highwayemergencystopmonitoringsystem.repositories.IncidentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Assigns highway segments to existing incidents.
+ * The id range is split between WORKERS threads; each walks its range in id-ordered batches, looks segments up
+ * in HighwaySegmentIndex and writes one bulk UPDATE per segment per batch in its own transaction.
+ * Updated incidents get a new last_modified_time so the rollup job re-aggregates their days;
+ * latency sketches and the active incident index are rebuilt once at the end, and the change log starts a new
+ * epoch so cached incident responses (ETags) carrying the old segment are revalidated.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SegmentBackfillService {
+
+    private static final int WORKERS = 4;
+    private static final int BATCH_SIZE = 5_000;
+
+    private final IncidentRepository incidentRepository;
+    private final HighwaySegmentIndex highwaySegmentIndex;
+    private final IncidentLatencySketches incidentLatencySketches;
+    private final ActiveIncidentIndex activeIncidentIndex;
+    private final IncidentChangeLog incidentChangeLog;
+    private final TransactionTemplate transactionTemplate;
+    private final WorkerThreads workerThreads;
+
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    /**
+     * Assign segments to incidents without one (or to every incident when reassign is true).
+     * Incidents created while the job runs already get their segment from createIncident.
+     */
+    public Map<String, Object> backfill(boolean reassign) {
+        if (!runLock.tryLock()) {
+            throw new IllegalStateException("Segment backfill is already running");
+        }
+        long started = System.currentTimeMillis();
+        ExecutorService workers = Executors.newFixedThreadPool(WORKERS, workerThreads.factory("segment-backfill-"));
+        AtomicLong committed = new AtomicLong(); // rows updated by committed batches, also when a later batch fails
+        try {
+            long maxId = incidentRepository.findMaxId().orElse(0L);
+            long rangeSize = maxId / WORKERS + 1;
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int worker = 0; worker < WORKERS; worker++) {
+                long fromId = worker * rangeSize;
+                long toId = Math.min(maxId, fromId + rangeSize);
+                results.add(workers.submit(() -> backfillRange(fromId, toId, reassign, committed)));
+            }
+
+            long scanned = 0;
+            long updated = 0;
+            for (Future<long[]> result : results) {
+                long[] counts = result.get();
+                scanned += counts[0];
+                updated += counts[1];
+            }
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("scanned", scanned);
+            summary.put("updated", updated);
+            summary.put("durationMs", System.currentTimeMillis() - started);
+            log.info("Segment backfill finished: {}", summary);
+            return summary;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Segment backfill interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Segment backfill failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+            workers.close(); // waits, so a failed run refreshes after the other workers' last commit
+            try {
+                if (committed.get() > 0) {
+                    refreshDerivedState();
+                }
+            } finally {
+                runLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Ids in (fromId, toId]. Returns [scanned, updated].
+     */
+    private long[] backfillRange(long fromId, long toId, boolean reassign, AtomicLong committed) {
+        long scanned = 0;
+        long updated = 0;
+        long afterId = fromId;
+        List<Object[]> batch;
+        do {
+            batch = incidentRepository.findCoordinatesForSegmentBackfill(afterId, toId, reassign, PageRequest.of(0, BATCH_SIZE));
+            Map<Long, List<Long>> idsBySegment = new HashMap<>();
+            for (Object[] row : batch) {
+                afterId = (Long) row[0];
+                Long segmentId = highwaySegmentIndex.findSegmentId((Double) row[1], (Double) row[2]);
+                if (!Objects.equals(segmentId, row[3])) {
+                    idsBySegment.computeIfAbsent(segmentId, s -> new ArrayList<>()).add(afterId);
+                }
+            }
+            if (!idsBySegment.isEmpty()) {
+                LocalDateTime now = LocalDateTime.now();
+                transactionTemplate.executeWithoutResult(status ->
+                        idsBySegment.forEach((segmentId, ids) -> incidentRepository.assignSegment(segmentId, ids, now)));
+                long batchUpdated = idsBySegment.values().stream().mapToLong(List::size).sum();
+                committed.addAndGet(batchUpdated);
+                updated += batchUpdated;
+            }
+            scanned += batch.size();
+        } while (batch.size() == BATCH_SIZE);
+        return new long[]{scanned, updated};
+    }
+
+    /**
+     * The bulk UPDATEs bypass IncidentChangedEvent: reload what caches segment ids and invalidate every ETag
+     */
+    private void refreshDerivedState() {
+        incidentLatencySketches.rebuild();
+        activeIncidentIndex.rebuild();
+        incidentChangeLog.advanceEpoch();
+    }
+}
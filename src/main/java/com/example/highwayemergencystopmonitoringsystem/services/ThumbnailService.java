@@ -0,0 +1,337 @@
+package com.example.highwayemergencystopmonitoringsystem.services;
+
+import com.example.highwayemergencystopmonitoringsystem.configs.ThumbnailConfig;
+import com.example.highwayemergencystopmonitoringsystem.configs.WorkerThreads;
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentImageResponse;
+import com.example.highwayemergencystopmonitoringsystem.events.IncidentChangedEvent;
+import com.example.highwayemergencystopmonitoringsystem.repositories.IncidentImageRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed-size JPEG thumbnails of incident images, so list and map views do not download the originals.
+ * Once an incident's images are committed, each image without thumbnails is queued on a bounded worker pool;
+ * a full queue drops the image (and backfill() picks it up later). Every image gets a SMALL and a PREVIEW
+ * thumbnail, scaled to fit inside that many pixels, under THUMBNAIL_DIR and named after the image file, which
+ * under the content-addressable store is its digest: the files never change and identical images share them.
+ * They are sharded like the images (see ImageStorageService.shard).
+ * The reader subsamples large originals while decoding, so a worker holds a frame of two to four times the
+ * PREVIEW edge rather than the full-resolution image. Formats ImageIO cannot decode (WebP) get no thumbnails;
+ * callers fall back to the original.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ThumbnailService {
+
+    public static final String THUMBNAIL_DIR = "uploads/thumbnails";
+    public static final int SMALL = 160;
+    public static final int PREVIEW = 640;
+    private static final int[] SIZES = {PREVIEW, SMALL}; // largest first: each is scaled from the previous one
+    private static final String IMAGE_URL_PREFIX = "/api/incidents/image/";
+    private static final int BATCH_SIZE = 500;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final ThumbnailConfig config;
+    private final IncidentImageRepository incidentImageRepository;
+    private final WorkerThreads workerThreads;
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final LongAdder dropped = new LongAdder();
+    private final ReentrantLock backfillLock = new ReentrantLock();
+    private ThreadPoolExecutor workers;
+
+    @PostConstruct
+    public void start() {
+        workers = new ThreadPoolExecutor(config.getWorkers(), config.getWorkers(), 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(config.getQueueCapacity()), workerThreads.factory("thumbnail-"));
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Thumbnail workers did not drain, {} images left without thumbnails", workers.shutdownNow().size());
+        }
+    }
+
+    /**
+     * URL of the thumbnail of the image stored at filePath, null for no image
+     */
+    public static String url(String filePath, int size) {
+        if (filePath == null) {
+            return null;
+        }
+        Path path = thumbnailPath(filePath, size);
+        String directory = path.getParent().toString().replace("\\", "/");
+        return IMAGE_URL_PREFIX + directory + "/" + URLEncoder.encode(path.getFileName().toString(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Queue thumbnails for the images of created and merged incidents, and for images moved to a new path
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIncidentChanged(IncidentChangedEvent event) {
+        if (event.getType() != IncidentChangedEvent.Type.CREATED && event.getType() != IncidentChangedEvent.Type.IMAGE_ADDED
+                && event.getType() != IncidentChangedEvent.Type.IMAGES_UPDATED) {
+            return;
+        }
+        if (event.getIncident().getImages() == null) {
+            return;
+        }
+        for (IncidentImageResponse image : event.getIncident().getImages()) {
+            submit(image.getFilePath());
+        }
+    }
+
+    /**
+     * Queue thumbnails for the image stored at filePath unless they exist or are already queued
+     */
+    public void submit(String filePath) {
+        if (hasThumbnails(filePath) || !pending.add(filePath)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    generate(filePath);
+                } catch (Exception e) {
+                    log.error("Thumbnails for {} failed", filePath, e);
+                } finally {
+                    pending.remove(filePath);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(filePath);
+            dropped.increment();
+            log.warn("Thumbnail queue full, {} left for backfill ({} dropped so far)", filePath, dropped.sum());
+        }
+    }
+
+    /**
+     * Generate missing thumbnails for every stored image, in id-ordered batches on the worker count of the pool.
+     * Returns scanned, generated and unsupported image counts. Throws IllegalStateException when already running.
+     */
+    public Map<String, Object> backfill() {
+        if (!backfillLock.tryLock()) {
+            throw new IllegalStateException("Thumbnail backfill is already running");
+        }
+        long started = System.currentTimeMillis();
+        ThreadPoolExecutor backfillWorkers = new ThreadPoolExecutor(config.getWorkers(), config.getWorkers(), 0,
+                TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), workerThreads.factory("thumbnail-backfill-"));
+        try {
+            long scanned = 0;
+            long generated = 0;
+            long unsupported = 0;
+            long afterId = 0;
+            List<Object[]> batch;
+            do {
+                batch = incidentImageRepository.findFilePathsAfterId(afterId, PageRequest.of(0, BATCH_SIZE));
+                List<Future<Boolean>> results = new ArrayList<>();
+                for (Object[] row : batch) {
+                    afterId = (Long) row[0];
+                    String filePath = (String) row[1];
+                    if (!hasThumbnails(filePath)) {
+                        results.add(backfillWorkers.submit(() -> generate(filePath)));
+                    }
+                }
+                for (Future<Boolean> result : results) {
+                    if (result.get()) {
+                        generated++;
+                    } else {
+                        unsupported++;
+                    }
+                }
+                scanned += batch.size();
+            } while (batch.size() == BATCH_SIZE);
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("scanned", scanned);
+            summary.put("generated", generated);
+            summary.put("unsupported", unsupported);
+            summary.put("durationMs", System.currentTimeMillis() - started);
+            log.info("Thumbnail backfill finished: {}", summary);
+            return summary;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Thumbnail backfill interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Thumbnail backfill failed", e.getCause());
+        } finally {
+            backfillWorkers.shutdownNow();
+            backfillLock.unlock();
+        }
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Write the thumbnails of one image; false when the file is missing or cannot be decoded
+     */
+    private boolean generate(String filePath) throws IOException {
+        Path source = Paths.get(filePath);
+        if (!Files.isRegularFile(source)) {
+            log.warn("No thumbnails for {}: file is missing", filePath);
+            return false;
+        }
+        BufferedImage image = read(source, PREVIEW);
+        if (image == null) {
+            log.debug("No thumbnails for {}: format not supported", filePath);
+            return false;
+        }
+        for (int size : SIZES) {
+            image = scale(image, size);
+            Path target = thumbnailPath(filePath, size);
+            Files.createDirectories(target.getParent());
+            write(image, target);
+        }
+        return true;
+    }
+
+    /**
+     * Decode the first frame, subsampled to no less than twice maxEdge when the original is larger
+     */
+    private static BufferedImage read(Path source, int maxEdge) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longestEdge = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, longestEdge / (2 * maxEdge));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Fit inside maxEdge pixels (never enlarging) on a white background, halving in steps so bilinear
+     * filtering does not skip source pixels
+     */
+    private static BufferedImage scale(BufferedImage source, int maxEdge) {
+        double ratio = Math.min(1.0, (double) maxEdge / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+        BufferedImage current = source;
+        do {
+            int width = Math.max(targetWidth, current.getWidth() / 2);
+            int height = Math.max(targetHeight, current.getHeight() / 2);
+            if (width < 2 * targetWidth || height < 2 * targetHeight) {
+                width = targetWidth;
+                height = targetHeight;
+            }
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (current.getWidth() != targetWidth || current.getHeight() != targetHeight);
+        return current;
+    }
+
+    /**
+     * Encode as JPEG through a temporary name, so a reader never sees a partial thumbnail
+     */
+    private void write(BufferedImage image, Path target) throws IOException {
+        Path temp = target.resolveSibling(UUID.randomUUID() + ".tmp");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(config.getQuality());
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        } finally {
+            writer.dispose();
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            Files.delete(temp); // same image generated concurrently
+        }
+    }
+
+    private static boolean hasThumbnails(String filePath) {
+        if (filePath == null) {
+            return true;
+        }
+        for (int size : SIZES) {
+            if (ImageStorageService.locate(thumbnailPath(filePath, size)) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Path thumbnailPath(String filePath, int size) {
+        return ImageStorageService.shard(Paths.get(THUMBNAIL_DIR), thumbnailName(filePath, size));
+    }
+
+    /**
+     * Image file name without extension, plus the size: the digest under the content-addressable store
+     */
+    private static String thumbnailName(String filePath, int size) {
+        String name = filePath.substring(filePath.replace("\\", "/").lastIndexOf('/') + 1);
+        int dot = name.lastIndexOf('.');
+        return (dot > 0 ? name.substring(0, dot) : name) + "_" + size + ".jpg";
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.highwayemergencystopmonitoringsystem.websocket;
 
 import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentResponse;
+import com.example.highwayemergencystopmonitoringsystem.events.IncidentChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -18,70 +19,34 @@ public class IncidentWebSocketHandler {
     private final SimpMessagingTemplate messagingTemplate;
 
     /**
-     * Broadcast incident created event
+     * Broadcast a committed incident change with its change log sequence number.
+     * Clients that see a gap in sequence catch up through GET /api/incidents/changes?since=
      */
-    public void broadcastIncidentCreated(IncidentResponse incident) {
+    public void broadcastChange(IncidentChangedEvent event, long sequence, String epoch) {
+        IncidentResponse incident = event.getIncident();
+        String type = messageType(event.getType());
         try {
             WebSocketMessage message = WebSocketMessage.builder()
-                    .type("INCIDENT_CREATED")
+                    .type(type)
                     .data(incident)
                     .timestamp(System.currentTimeMillis())
+                    .sequence(sequence)
+                    .epoch(epoch)
                     .build();
             messagingTemplate.convertAndSend("/topic/incidents", message);
-            log.info("Broadcasted INCIDENT_CREATED: {}", incident.getId());
+            log.info("Broadcasted {} #{}: {}", type, sequence, incident.getId());
         } catch (Exception e) {
-            log.error("Error broadcasting incident created", e);
+            log.error("Error broadcasting {}", type, e);
         }
     }
 
-    /**
-     * Broadcast incident confirmed event
-     */
-    public void broadcastIncidentConfirmed(IncidentResponse incident) {
-        try {
-            WebSocketMessage message = WebSocketMessage.builder()
-                    .type("INCIDENT_CONFIRMED")
-                    .data(incident)
-                    .timestamp(System.currentTimeMillis())
-                    .build();
-            messagingTemplate.convertAndSend("/topic/incidents", message);
-            log.info("Broadcasted INCIDENT_CONFIRMED: {}", incident.getId());
-        } catch (Exception e) {
-            log.error("Error broadcasting incident confirmed", e);
-        }
-    }
-
-    /**
-     * Broadcast incident resolved event
-     */
-    public void broadcastIncidentResolved(IncidentResponse incident) {
-        try {
-            WebSocketMessage message = WebSocketMessage.builder()
-                    .type("INCIDENT_RESOLVED")
-                    .data(incident)
-                    .timestamp(System.currentTimeMillis())
-                    .build();
-            messagingTemplate.convertAndSend("/topic/incidents", message);
-            log.info("Broadcasted INCIDENT_RESOLVED: {}", incident.getId());
-        } catch (Exception e) {
-            log.error("Error broadcasting incident resolved", e);
-        }
-    }
-
-    /**
-     * Broadcast image added to incident
-     */
-    public void broadcastImageAdded(Long incidentId, IncidentResponse incident) {
-        try {
-            WebSocketMessage message = WebSocketMessage.builder()
-                    .type("IMAGE_ADDED")
-                    .data(incident)
-                    .timestamp(System.currentTimeMillis())
-                    .build();
-            messagingTemplate.convertAndSend("/topic/incidents", message);
-            log.info("Broadcasted IMAGE_ADDED to incident: {}", incidentId);
-        } catch (Exception e) {
-            log.error("Error broadcasting image added", e);
-        }
+    private static String messageType(IncidentChangedEvent.Type type) {
+        return switch (type) {
+            case CREATED -> "INCIDENT_CREATED";
+            case CONFIRMED -> "INCIDENT_CONFIRMED";
+            case RESOLVED -> "INCIDENT_RESOLVED";
+            case IMAGE_ADDED -> "IMAGE_ADDED";
+            case IMAGES_UPDATED -> "IMAGES_UPDATED";
+        };
     }
 }
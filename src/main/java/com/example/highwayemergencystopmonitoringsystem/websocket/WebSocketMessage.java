@@ -23,4 +23,10 @@ public class WebSocketMessage {
     
     @JsonProperty("timestamp")
     private Long timestamp;
+    
+    @JsonProperty("sequence")
+    private Long sequence; // change log sequence number, consecutive within one epoch
+    
+    @JsonProperty("epoch")
+    private String epoch; // changes when the server restarts and sequences start over
 }
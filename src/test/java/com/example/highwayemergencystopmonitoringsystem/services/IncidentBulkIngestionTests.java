@@ -0,0 +1,93 @@
+package com.example.highwayemergencystopmonitoringsystem.services;
+
+import com.example.highwayemergencystopmonitoringsystem.dtos.BulkIncidentItem;
+import com.example.highwayemergencystopmonitoringsystem.dtos.BulkIncidentResult;
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentRequest;
+import com.example.highwayemergencystopmonitoringsystem.repositories.IncidentRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput of the bulk create path against the same number of single creates.
+ * Not @Transactional: each single create must commit on its own, as it does behind the HTTP endpoint.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Slf4j
+class IncidentBulkIngestionTests {
+
+    private static final int INCIDENTS = 200;
+
+    @Autowired
+    private IncidentService incidentService;
+
+    @Autowired
+    private IncidentRepository incidentRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Long> createdIds = new ArrayList<>();
+
+    @AfterEach
+    void deleteFixtures() {
+        incidentRepository.deleteAllByIdInBatch(createdIds);
+    }
+
+    @Test
+    void bulkCreateBatchesInserts() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        long singleStarted = System.nanoTime();
+        for (int i = 0; i < INCIDENTS; i++) {
+            createdIds.add(incidentService.createIncident(IncidentRequest.builder()
+                    .latitude(10.8)
+                    .longitude(106.7)
+                    .description("single ingestion fixture " + i)
+                    .build(), List.of()).getId());
+        }
+        long singleNanos = System.nanoTime() - singleStarted;
+        long singleStatements = statistics.getPrepareStatementCount();
+
+        List<BulkIncidentItem> items = new ArrayList<>();
+        for (int i = 0; i < INCIDENTS; i++) {
+            items.add(BulkIncidentItem.builder()
+                    .clientRef("fixture-" + i)
+                    .latitude(10.8)
+                    .longitude(106.7)
+                    .description("bulk ingestion fixture " + i)
+                    .build());
+        }
+        items.add(BulkIncidentItem.builder().clientRef("invalid").latitude(91.0).longitude(106.7).description("x").build());
+
+        statistics.clear();
+        long bulkStarted = System.nanoTime();
+        List<BulkIncidentResult> results = incidentService.createIncidents(items, Map.of());
+        long bulkNanos = System.nanoTime() - bulkStarted;
+        long bulkStatements = statistics.getPrepareStatementCount();
+        results.stream().map(BulkIncidentResult::getIncidentId).filter(Objects::nonNull).forEach(createdIds::add);
+
+        log.info("Ingestion of {} incidents: single {}/s ({} statements), bulk {}/s ({} statements)",
+                INCIDENTS, INCIDENTS * 1_000_000_000L / singleNanos, singleStatements,
+                INCIDENTS * 1_000_000_000L / bulkNanos, bulkStatements);
+
+        assertThat(results).hasSize(INCIDENTS + 1);
+        assertThat(results.subList(0, INCIDENTS)).allMatch(result -> result.getStatus() == BulkIncidentResult.Status.CREATED);
+        assertThat(results.get(INCIDENTS).getStatus()).isEqualTo(BulkIncidentResult.Status.INVALID);
+        // One insert per batch of hibernate.jdbc.batch_size rows instead of one per row
+        assertThat(bulkStatements).isLessThan(singleStatements / 10);
+    }
+}
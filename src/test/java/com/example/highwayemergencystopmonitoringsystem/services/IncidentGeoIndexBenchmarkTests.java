@@ -0,0 +1,199 @@
+package com.example.highwayemergencystopmonitoringsystem.services;
+
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentSummary;
+import com.example.highwayemergencystopmonitoringsystem.entities.Incident;
+import com.example.highwayemergencystopmonitoringsystem.repositories.IncidentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Bounding-box and nearest-active queries on the geo index at a million incidents, against a plain scan of the
+ * same points (what a range scan without a spatial index does). The index is loaded from a mocked repository,
+ * so nothing touches the application database. Both must return the same incidents, and after warm-up the
+ * index has to answer at p99 within TARGET_NANOS (sub-millisecond).
+ * Tagged "load" and excluded from mvn test; run with mvn test -Pload-tests.
+ */
+@Tag("load")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Slf4j
+class IncidentGeoIndexBenchmarkTests {
+
+    private static final int INCIDENTS = 1_000_000;
+    private static final int WARMUP_QUERIES = 20_000; // lets the JIT finish compiling the query paths before timing
+    private static final int QUERIES = 1_000;
+    private static final int LIMIT = 1_000;
+    private static final int NEAREST = 10;
+    private static final double ACTIVE_RATIO = 0.1;
+    private static final long TARGET_NANOS = 1_000_000;
+    // Roughly the extent of the national highway network
+    private static final double MIN_LAT = 8.5;
+    private static final double MIN_LON = 102.0;
+    private static final double LAT_SPAN = 15.0;
+    private static final double LON_SPAN = 8.0;
+
+    private final Random random = new Random(42);
+    private final List<IncidentSummary> fixture = new ArrayList<>(INCIDENTS);
+    private IncidentGeoIndex incidentGeoIndex;
+
+    @BeforeAll
+    void loadIndex() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < INCIDENTS; i++) {
+            Incident.IncidentStatus status = random.nextDouble() >= ACTIVE_RATIO ? Incident.IncidentStatus.RESOLVED
+                    : random.nextBoolean() ? Incident.IncidentStatus.DETECTED : Incident.IncidentStatus.CONFIRMED;
+            fixture.add(new IncidentSummary((long) i + 1, MIN_LAT + random.nextDouble() * LAT_SPAN,
+                    MIN_LON + random.nextDouble() * LON_SPAN, status, base.plusSeconds(i)));
+        }
+
+        // Ids are 1..INCIDENTS in order, so the keyset page after afterId starts at index afterId
+        IncidentRepository incidentRepository = mock(IncidentRepository.class);
+        when(incidentRepository.findSummariesAfterId(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            int from = (int) Math.min(INCIDENTS, (long) invocation.getArgument(0));
+            Pageable pageable = invocation.getArgument(1);
+            return fixture.subList(from, Math.min(INCIDENTS, from + pageable.getPageSize()));
+        });
+        incidentGeoIndex = new IncidentGeoIndex(incidentRepository);
+        assertThat(incidentGeoIndex.rebuild()).isEqualTo(INCIDENTS);
+    }
+
+    @Test
+    void boundingBoxesAnswerWithinTarget() {
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            double[] box = randomBox();
+            incidentGeoIndex.findWithin(box[0], box[1], box[2], box[3], null, LIMIT);
+        }
+
+        // Index queries timed in their own pass, so the scans do not evict what they use from the caches
+        double[][] boxes = new double[QUERIES][];
+        List<List<IncidentSummary>> fromIndex = new ArrayList<>(QUERIES);
+        long[] indexNanos = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            boxes[i] = randomBox();
+            long started = System.nanoTime();
+            fromIndex.add(incidentGeoIndex.findWithin(boxes[i][0], boxes[i][1], boxes[i][2], boxes[i][3], null, LIMIT));
+            indexNanos[i] = System.nanoTime() - started;
+        }
+
+        long[] scanNanos = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            long started = System.nanoTime();
+            List<Long> fromScan = scanWithin(boxes[i]);
+            scanNanos[i] = System.nanoTime() - started;
+            assertThat(fromIndex.get(i)).extracting(IncidentSummary::getId).containsExactlyElementsOf(fromScan);
+        }
+
+        log.info("{} bounding boxes over {} incidents: index p50 {} us p99 {} us, scan p50 {} us",
+                QUERIES, INCIDENTS, percentile(indexNanos, 0.5) / 1_000, percentile(indexNanos, 0.99) / 1_000,
+                percentile(scanNanos, 0.5) / 1_000);
+        assertThat(percentile(indexNanos, 0.99)).isLessThan(TARGET_NANOS);
+    }
+
+    @Test
+    void nearestActiveAnswersWithinTarget() {
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            incidentGeoIndex.findNearestActive(randomLatitude(), randomLongitude(), NEAREST);
+        }
+
+        double[][] points = new double[QUERIES][];
+        List<List<IncidentSummary>> fromIndex = new ArrayList<>(QUERIES);
+        long[] indexNanos = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            points[i] = new double[]{randomLatitude(), randomLongitude()};
+            long started = System.nanoTime();
+            fromIndex.add(incidentGeoIndex.findNearestActive(points[i][0], points[i][1], NEAREST));
+            indexNanos[i] = System.nanoTime() - started;
+        }
+
+        long[] scanNanos = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            long started = System.nanoTime();
+            List<Long> fromScan = scanNearestActive(points[i][0], points[i][1]);
+            scanNanos[i] = System.nanoTime() - started;
+            assertThat(fromIndex.get(i)).extracting(IncidentSummary::getId).containsExactlyElementsOf(fromScan);
+        }
+
+        log.info("{} nearest-{} lookups over {} incidents: index p50 {} us p99 {} us, scan p50 {} us",
+                QUERIES, NEAREST, INCIDENTS, percentile(indexNanos, 0.5) / 1_000, percentile(indexNanos, 0.99) / 1_000,
+                percentile(scanNanos, 0.5) / 1_000);
+        assertThat(percentile(indexNanos, 0.99)).isLessThan(TARGET_NANOS);
+    }
+
+    /**
+     * minLat, minLon, maxLat, maxLon of a box between an interchange and a short stretch of highway
+     */
+    private double[] randomBox() {
+        double size = 0.01 + random.nextDouble() * 0.09;
+        double minLat = MIN_LAT + random.nextDouble() * (LAT_SPAN - size);
+        double minLon = MIN_LON + random.nextDouble() * (LON_SPAN - size);
+        return new double[]{minLat, minLon, minLat + size, minLon + size};
+    }
+
+    private double randomLatitude() {
+        return MIN_LAT + random.nextDouble() * LAT_SPAN;
+    }
+
+    private double randomLongitude() {
+        return MIN_LON + random.nextDouble() * LON_SPAN;
+    }
+
+    private List<Long> scanWithin(double[] box) {
+        Comparator<IncidentSummary> recentFirst = Comparator.comparing(IncidentSummary::getDetectionTime)
+                .thenComparing(IncidentSummary::getId)
+                .reversed();
+        PriorityQueue<IncidentSummary> newest = new PriorityQueue<>(recentFirst.reversed());
+        for (IncidentSummary incident : fixture) {
+            if (incident.getLatitude() >= box[0] && incident.getLatitude() <= box[2]
+                    && incident.getLongitude() >= box[1] && incident.getLongitude() <= box[3]) {
+                newest.offer(incident);
+                if (newest.size() > LIMIT) {
+                    newest.poll();
+                }
+            }
+        }
+        return newest.stream().sorted(recentFirst).map(IncidentSummary::getId).toList();
+    }
+
+    private List<Long> scanNearestActive(double latitude, double longitude) {
+        Comparator<double[]> farthestFirst = Comparator.comparingDouble((double[] candidate) -> candidate[1]).reversed();
+        PriorityQueue<double[]> closest = new PriorityQueue<>(farthestFirst);
+        for (IncidentSummary incident : fixture) {
+            if (incident.getStatus() == Incident.IncidentStatus.RESOLVED) {
+                continue;
+            }
+            double distance = IncidentGeoIndex.haversineMeters(latitude, longitude,
+                    incident.getLatitude(), incident.getLongitude());
+            closest.offer(new double[]{incident.getId(), distance});
+            if (closest.size() > NEAREST) {
+                closest.poll();
+            }
+        }
+        return closest.stream()
+                .sorted(farthestFirst.reversed())
+                .map(candidate -> (long) candidate[0])
+                .toList();
+    }
+
+    private static long percentile(long[] values, double percentile) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(sorted.length * percentile) - 1];
+    }
+}
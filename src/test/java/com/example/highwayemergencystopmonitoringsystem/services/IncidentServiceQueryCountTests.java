@@ -0,0 +1,80 @@
+package com.example.highwayemergencystopmonitoringsystem.services;
+
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentPage;
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentResponse;
+import com.example.highwayemergencystopmonitoringsystem.entities.Incident;
+import com.example.highwayemergencystopmonitoringsystem.entities.IncidentImage;
+import com.example.highwayemergencystopmonitoringsystem.repositories.IncidentImageRepository;
+import com.example.highwayemergencystopmonitoringsystem.repositories.IncidentRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class IncidentServiceQueryCountTests {
+
+    private static final int INCIDENTS = 25;
+    private static final int IMAGES_PER_INCIDENT = 2;
+
+    @Autowired
+    private IncidentService incidentService;
+
+    @Autowired
+    private IncidentRepository incidentRepository;
+
+    @Autowired
+    private IncidentImageRepository incidentImageRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void listingIssuesOneImageQueryPerPage() {
+        // Far-future detection times keep the fixture apart from whatever is already in the database
+        LocalDateTime base = LocalDateTime.of(2099, 1, 1, 0, 0);
+        for (int i = 0; i < INCIDENTS; i++) {
+            Incident incident = incidentRepository.save(Incident.builder()
+                    .latitude(10.8)
+                    .longitude(106.7)
+                    .description("query count fixture " + i)
+                    .status(Incident.IncidentStatus.DETECTED)
+                    .detectionTime(base.plusMinutes(i))
+                    .build());
+            for (int j = 0; j < IMAGES_PER_INCIDENT; j++) {
+                incidentImageRepository.save(IncidentImage.builder()
+                        .incident(incident)
+                        .filePath("uploads/incidents/fixture_" + i + "_" + j + ".png")
+                        .capturedAt(base)
+                        .build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        IncidentPage<IncidentResponse> page = incidentService.listIncidentsPage(
+                Incident.IncidentStatus.DETECTED, base, base.plusDays(1), null, INCIDENTS);
+
+        // One statement for the incident page, one for all of its images
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(page.getItems()).hasSize(INCIDENTS);
+        for (IncidentResponse response : page.getItems()) {
+            assertThat(response.getImages()).hasSize(IMAGES_PER_INCIDENT);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.highwayemergencystopmonitoringsystem.services;
+
+import com.example.highwayemergencystopmonitoringsystem.dtos.IncidentSummary;
+import com.example.highwayemergencystopmonitoringsystem.entities.Incident;
+import com.example.highwayemergencystopmonitoringsystem.entities.IncidentImage;
+import com.example.highwayemergencystopmonitoringsystem.repositories.IncidentImageRepository;
+import com.example.highwayemergencystopmonitoringsystem.repositories.IncidentRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Serialized bytes and bytes allocated per page request for the full IncidentResponse listing against the
+ * IncidentSummary listing (?fields=) over the same incidents. Allocation is read from the request thread's
+ * allocation counter around the service call plus JSON serialization, after warm-up, best of RUNS.
+ */
+@SpringBootTest
+@Transactional
+@Slf4j
+class IncidentSummaryPayloadTests {
+
+    private static final int INCIDENTS = 100;
+    private static final int IMAGES_PER_INCIDENT = 2;
+    private static final int WARMUP_RUNS = 5;
+    private static final int RUNS = 5;
+
+    @Autowired
+    private IncidentService incidentService;
+
+    @Autowired
+    private IncidentRepository incidentRepository;
+
+    @Autowired
+    private IncidentImageRepository incidentImageRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void summaryPagesAreSmallerAndAllocateLess() {
+        // Far-future detection times keep the fixture apart from whatever is already in the database
+        LocalDateTime base = LocalDateTime.of(2099, 2, 1, 0, 0);
+        for (int i = 0; i < INCIDENTS; i++) {
+            Incident incident = incidentRepository.save(Incident.builder()
+                    .latitude(10.8 + i * 0.001)
+                    .longitude(106.7 + i * 0.001)
+                    .description("payload fixture " + i + ": xe tải dừng khẩn cấp trên làn phải, cần hỗ trợ")
+                    .status(Incident.IncidentStatus.DETECTED)
+                    .detectionTime(base.plusMinutes(i))
+                    .build());
+            for (int j = 0; j < IMAGES_PER_INCIDENT; j++) {
+                incidentImageRepository.save(IncidentImage.builder()
+                        .incident(incident)
+                        .filePath("uploads/incidents/fixture_" + i + "_" + j + ".png")
+                        .capturedAt(base)
+                        .build());
+            }
+        }
+        entityManager.flush();
+
+        Supplier<Object> fullPage = () -> incidentService.listIncidentsPage(
+                Incident.IncidentStatus.DETECTED, base, base.plusDays(1), null, INCIDENTS);
+        Supplier<Object> summaryPage = () -> incidentService.listIncidentSummariesPage(
+                Incident.IncidentStatus.DETECTED, base, base.plusDays(1), null, INCIDENTS, IncidentSummary.FIELDS);
+
+        long fullBytes = objectMapper.writeValueAsBytes(fullPage.get()).length;
+        long summaryBytes = objectMapper.writeValueAsBytes(summaryPage.get()).length;
+        long fullAllocated = allocatedPerRequest(fullPage);
+        long summaryAllocated = allocatedPerRequest(summaryPage);
+
+        log.info("Page of {} incidents: full {} bytes / {} allocated, summary {} bytes / {} allocated",
+                INCIDENTS, fullBytes, fullAllocated, summaryBytes, summaryAllocated);
+        assertThat(summaryBytes).isLessThan(fullBytes / 2);
+        assertThat(summaryAllocated).isLessThan(fullAllocated);
+    }
+
+    /**
+     * Fewest bytes the current thread allocated for one page request (query, mapping and serialization)
+     */
+    private long allocatedPerRequest(Supplier<Object> page) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < WARMUP_RUNS + RUNS; run++) {
+            entityManager.clear(); // every request starts with an empty persistence context
+            long before = threads.getCurrentThreadAllocatedBytes();
+            objectMapper.writeValueAsBytes(page.get());
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+            if (run >= WARMUP_RUNS) {
+                best = Math.min(best, allocated);
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.highwayemergencystopmonitoringsystem.services;
+
+import com.example.highwayemergencystopmonitoringsystem.entities.Incident;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput and p99 latency of a request-shaped workload (one incident page from MySQL plus one image file read)
+ * on a Tomcat-sized platform pool against one virtual thread per request.
+ * Database calls are bounded by a semaphore the size of the HikariCP pool, as a bulkhead in front of it would be,
+ * so neither mode waits on connection-timeout; the file reads are unbounded. Virtual threads must not cost
+ * throughput: they have to reach at least MIN_VIRTUAL_THROUGHPUT_RATIO of the platform pool's.
+ * Tagged "load" and excluded from mvn test; run with mvn test -Pload-tests.
+ */
+@SpringBootTest
+@Tag("load")
+@Slf4j
+class IncidentThreadingLoadTests {
+
+    private static final int REQUESTS = 2_000;
+    private static final int PLATFORM_THREADS = 200; // Tomcat's default max threads
+    private static final int IMAGE_BYTES = 256 * 1024;
+    private static final double MIN_VIRTUAL_THROUGHPUT_RATIO = 0.8;
+
+    @Autowired
+    private IncidentService incidentService;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size}")
+    private int poolSize;
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void comparePlatformAndVirtualThreads() throws Exception {
+        Path image = tempDir.resolve("load.png");
+        Files.write(image, new byte[IMAGE_BYTES]);
+
+        Result platform;
+        try (ExecutorService executor = Executors.newFixedThreadPool(PLATFORM_THREADS)) {
+            platform = run(executor, image);
+        }
+        Result virtual;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            virtual = run(executor, image);
+        }
+
+        log.info("{} requests: platform {}/s p99 {} ms, virtual {}/s p99 {} ms", REQUESTS,
+                platform.throughput(), platform.p99Millis(), virtual.throughput(), virtual.p99Millis());
+        assertThat(virtual.throughput()).isGreaterThanOrEqualTo((long) (platform.throughput() * MIN_VIRTUAL_THROUGHPUT_RATIO));
+    }
+
+    private Result run(ExecutorService executor, Path image) throws Exception {
+        Semaphore connections = new Semaphore(poolSize);
+        long[] latencies = new long[REQUESTS]; // one slot per task, read after every future completed
+        List<Future<?>> futures = new ArrayList<>();
+        long started = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            int request = i;
+            futures.add(executor.submit(() -> {
+                long requestStarted = System.nanoTime();
+                connections.acquire();
+                try {
+                    incidentService.listIncidentsPage(Incident.IncidentStatus.DETECTED, null, null, null, 20);
+                } finally {
+                    connections.release();
+                }
+                Files.readAllBytes(image);
+                latencies[request] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - requestStarted);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedNanos = System.nanoTime() - started;
+        Arrays.sort(latencies);
+        long p99 = latencies[(int) Math.ceil(REQUESTS * 0.99) - 1];
+        return new Result(REQUESTS * 1_000_000_000L / Math.max(1, elapsedNanos), p99);
+    }
+
+    private record Result(long throughput, long p99Millis) {
+    }
+}